@@ -0,0 +1,98 @@
+package iso8583;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Shared setup for the benchmarks: loads the bundled field config and builds pools of field data
+ * with a given number of fields and share of invalid values.
+ */
+final class BenchmarkFixtures {
+
+    static final String CONFIG_RESOURCE = "/iso_config_extended_flattened.json";
+    static final int POOL_SIZE = 64;
+
+    private static boolean loaded;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Loads the flattened config into ISO8583TestGenerator once per JVM
+     */
+    static synchronized void loadConfig() {
+        if (loaded) {
+            return;
+        }
+        try (InputStream config = BenchmarkFixtures.class.getResourceAsStream(CONFIG_RESOURCE)) {
+            if (config == null) {
+                throw new IllegalStateException("Missing benchmark resource " + CONFIG_RESOURCE);
+            }
+            Path configFile = Files.createTempFile("iso8583-config", ".json");
+            configFile.toFile().deleteOnExit();
+            Files.copy(config, configFile, StandardCopyOption.REPLACE_EXISTING);
+            ISO8583TestGenerator.loadFieldConfig(configFile.toString());
+            loaded = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param fieldCount "all", or the number of fields to keep from the valid baseline in config order
+     * @return The valid baseline restricted to the requested fields
+     */
+    static Map<String, String> validData(String fieldCount) {
+        Map<String, String> validData = ISO8583TestGenerator.generateAllValidData();
+        if (fieldCount.equals("all")) {
+            return validData;
+        }
+        int limit = Integer.parseInt(fieldCount);
+        Map<String, String> limited = new LinkedHashMap<>();
+        for (FieldSpec spec : ISO8583TestGenerator.fieldSpecs.all()) {
+            String value = validData.get(spec.getKey());
+            if (value != null && limited.size() < limit) {
+                limited.put(spec.getKey(), value);
+            }
+        }
+        return limited;
+    }
+
+    /**
+     * Builds POOL_SIZE field maps from the baseline, of which roughly invalidRatio carry one invalid value
+     */
+    static List<Map<String, String>> fieldDataPool(Map<String, String> validData, double invalidRatio) {
+        List<String[]> invalidValues = new ArrayList<>();
+        List<String> categories = ISO8583TestGenerator.TEST_CATEGORIES;
+        for (String key : validData.keySet()) {
+            FieldSpec spec = ISO8583TestGenerator.fieldSpecs.byKey(key);
+            for (int i = 0; spec != null && i < categories.size(); i++) {
+                if (spec.getInvalidValue(i) != null) {
+                    invalidValues.add(new String[] {key, spec.getInvalidValue(i)});
+                }
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        List<Map<String, String>> pool = new ArrayList<>(POOL_SIZE);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            Map<String, String> fieldData = new HashMap<>(validData);
+            if (!invalidValues.isEmpty() && random.nextDouble() < invalidRatio) {
+                String[] invalid = invalidValues.get(random.nextInt(invalidValues.size()));
+                fieldData.put(invalid[0], invalid[1]);
+            }
+            pool.add(fieldData);
+        }
+        return pool;
+    }
+}
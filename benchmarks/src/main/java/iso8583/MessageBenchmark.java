@@ -0,0 +1,88 @@
+package iso8583;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message build, local validation and response validation, per message.
+ * Run with -prof gc to see the allocation rate alongside ops/sec.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageBenchmark {
+
+    @Param({"8", "32", "all"})
+    public String fieldCount;
+
+    @Param({"0.0", "0.5"})
+    public double invalidRatio;
+
+    private Map<String, String>[] fieldData;
+    private String[] isoMessages;
+    private String[] responses;
+    private ParserResponseValidator.Expectations[] expectations;
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        BenchmarkFixtures.loadConfig();
+        List<Map<String, String>> pool = BenchmarkFixtures.fieldDataPool(
+                BenchmarkFixtures.validData(fieldCount), invalidRatio);
+
+        fieldData = pool.toArray(new Map[0]);
+        isoMessages = new String[fieldData.length];
+        responses = new String[fieldData.length];
+        expectations = new ParserResponseValidator.Expectations[fieldData.length];
+        for (int i = 0; i < fieldData.length; i++) {
+            isoMessages[i] = ISO8583TestGenerator.buildISOMessage(fieldData[i]);
+            // The response a parser would give if it accepted the message as sent
+            responses[i] = LoopbackParserStub.responseFor(fieldData[i]);
+            expectations[i] = ParserResponseValidator.Expectations.from(ISO8583TestGenerator.fieldSpecs, fieldData[i]);
+        }
+    }
+
+    private int nextIndex() {
+        return next++ & (BenchmarkFixtures.POOL_SIZE - 1);
+    }
+
+    @Benchmark
+    public String buildISOMessage() {
+        return ISO8583TestGenerator.buildISOMessage(fieldData[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean validateISOMessage() {
+        int i = nextIndex();
+        return ISO8583TestGenerator.validateISOMessage(isoMessages[i], fieldData[i]);
+    }
+
+    @Benchmark
+    public boolean validateParserResponse() {
+        int i = nextIndex();
+        return ISO8583TestGenerator.validateParserResponse(responses[i], expectations[i]);
+    }
+
+    @Benchmark
+    public boolean validateParserResponseFromFieldData() {
+        int i = nextIndex();
+        return ISO8583TestGenerator.validateParserResponse(responses[i], fieldData[i]);
+    }
+}
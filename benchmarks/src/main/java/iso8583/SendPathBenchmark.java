@@ -0,0 +1,76 @@
+package iso8583;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end send path (build, HTTP round trip, response validation) against a
+ * {@link LoopbackParserStub}, so no network or parser service is needed. The inprocess transport
+ * replaces the HTTP round trip with a call to the reference parser.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SendPathBenchmark {
+
+    @Param({"0.0", "0.5"})
+    public double invalidRatio;
+
+    @Param({"http", "inprocess"})
+    public String transport;
+
+    private LoopbackParserStub stub;
+    private Map<String, String>[] fieldData;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws IOException {
+        // The parser URL and transport are read when ISO8583TestGenerator is initialised, so the stub has to be
+        // up first; each parameter combination runs in its own fork
+        stub = new LoopbackParserStub("[]", 4);
+        System.setProperty("iso8583.parserUrl", stub.getUrl());
+        System.setProperty("iso8583.transport", transport);
+        BenchmarkFixtures.loadConfig();
+
+        Map<String, String> validData = BenchmarkFixtures.validData("all");
+        stub.setResponse(LoopbackParserStub.responseFor(validData));
+        List<Map<String, String>> pool = BenchmarkFixtures.fieldDataPool(validData, invalidRatio);
+        fieldData = pool.toArray(new Map[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stub.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public boolean sendAndValidateMessage(Cursor cursor) {
+        return ISO8583TestGenerator.sendAndValidateMessage(fieldData[cursor.next++ & (BenchmarkFixtures.POOL_SIZE - 1)]);
+    }
+}
@@ -0,0 +1,89 @@
+package iso8583;
+
+/**
+ * Caps the number of messages in flight to the parser and adjusts the cap from observed latency (AIMD).
+ * The limit grows by about one per round trip while latency stays near the lowest recently seen, and is cut
+ * by 10% when latency rises past twice that (requests are queueing at the parser) or by half when a send
+ * fails outright. A fast parser is driven up to the maximum, a slow one gets only as many requests as it
+ * answers without queueing.
+ */
+final class AdaptiveConcurrencyLimiter {
+
+    // Latency above this multiple of the recent minimum counts as queueing
+    private static final double LATENCY_TOLERANCE = 2.0;
+    // The minimum latency is taken over the last one or two windows of this many sends, so a parser that
+    // gets permanently slower resets the baseline instead of being throttled down to one request
+    private static final int MIN_LATENCY_WINDOW = 250;
+
+    private final int maxLimit;
+    private double limit;
+    private int inFlight;
+    private long minLatencyNanos = Long.MAX_VALUE;
+    private long windowMinLatencyNanos = Long.MAX_VALUE;
+    private int windowSamples;
+
+    /**
+     * @param initialLimit Requests allowed in flight before any latency has been seen
+     * @param maxLimit Upper bound for the limit, normally the number of sending threads
+     */
+    AdaptiveConcurrencyLimiter(int initialLimit, int maxLimit) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.limit = Math.max(1, Math.min(initialLimit, this.maxLimit));
+    }
+
+    /**
+     * Waits until another request may be sent
+     */
+    synchronized void acquire() throws InterruptedException {
+        while (inFlight >= (int) limit) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    /**
+     * Releases a request that got a response after the given latency
+     */
+    synchronized void onResponse(long latencyNanos) {
+        boolean limitReached = inFlight >= (int) limit;
+        inFlight--;
+        windowMinLatencyNanos = Math.min(windowMinLatencyNanos, latencyNanos);
+        if (++windowSamples >= MIN_LATENCY_WINDOW) {
+            minLatencyNanos = windowMinLatencyNanos;
+            windowMinLatencyNanos = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+        long baselineNanos = Math.min(minLatencyNanos, windowMinLatencyNanos);
+        if (latencyNanos > baselineNanos * LATENCY_TOLERANCE) {
+            limit = Math.max(1, limit * 0.9);
+        } else if (limitReached) {
+            // Only grow while the current limit is actually in use
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Releases a request that failed at the transport (timeout, refused or reset connection)
+     */
+    synchronized void onDropped() {
+        inFlight--;
+        limit = Math.max(1, limit * 0.5);
+        notifyAll();
+    }
+
+    /**
+     * Releases a request without taking it into account, e.g. one that failed before it was sent
+     */
+    synchronized void onIgnored() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * @return The number of requests currently allowed in flight
+     */
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+}
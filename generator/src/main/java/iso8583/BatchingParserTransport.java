@@ -0,0 +1,229 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends the messages of concurrent callers to the parser together, as one JSON array request of up to
+ * maxBatchSize messages, and hands each caller its own element of the JSON array response.
+ *
+ * A dispatcher thread builds the batches. With a window, a batch is sent once it is full or its first
+ * message has waited that long. Without one, whatever has queued is sent as soon as one of maxInFlight
+ * requests is free, so batches grow while the parser is busy and shrink to single messages when it is not.
+ * A failed request fails every message in it. An HTTP error status for the whole request is not the
+ * parser's answer to any one message, so the messages fail with a plain IOException: a transport failure
+ * that is retried, never a rejection.
+ */
+final class BatchingParserTransport implements ParserTransport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * A message waiting for its batch
+     */
+    private static final class Pending {
+        final String isoMessage;
+        final long queuedNanos = System.nanoTime();
+        final CompletableFuture<String> response = new CompletableFuture<>();
+
+        Pending(String isoMessage) {
+            this.isoMessage = isoMessage;
+        }
+    }
+
+    private final ParserHttpClient client;
+    private final ParserTransport underlying;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final Semaphore requestSlots;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * @param client Sends the batch requests
+     * @param underlying The transport the client belongs to, closed along with this one
+     * @param maxBatchSize Most messages in one request
+     * @param windowMillis How long the first message of a batch waits for more, or 0 to send when a request is free
+     * @param maxInFlight Batch requests sent at the same time
+     */
+    BatchingParserTransport(ParserHttpClient client, ParserTransport underlying, int maxBatchSize, long windowMillis,
+                            int maxInFlight) {
+        this.client = client;
+        this.underlying = underlying;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.requestSlots = new Semaphore(Math.max(1, maxInFlight));
+        this.dispatcher = new Thread(this::dispatch, "parser-batch-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @Override
+    public String send(String isoMessage) throws IOException {
+        CompletableFuture<String> response = sendAsync(isoMessage);
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for parser response");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> sendAsync(String isoMessage) {
+        Pending pending = new Pending(isoMessage);
+        queue.add(pending);
+        if (closed) {
+            // Closed while queueing; the dispatcher may already be gone
+            failQueued(new IOException("Parser transport closed"));
+        }
+        return pending.response;
+    }
+
+    private void dispatch() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed) {
+                requestSlots.acquire();
+                Pending first = queue.take();
+                batch.add(first);
+                if (windowNanos > 0) {
+                    long deadline = first.queuedNanos + windowNanos;
+                    long remaining;
+                    while (batch.size() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                        Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                } else {
+                    queue.drainTo(batch, maxBatchSize - 1);
+                }
+                sendBatch(new ArrayList<>(batch));
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Closing
+        }
+        IOException closedException = new IOException("Parser transport closed");
+        failAll(batch, closedException);
+        failQueued(closedException);
+    }
+
+    private void sendBatch(List<Pending> batch) {
+        batches.increment();
+        messages.add(batch.size());
+        List<String> isoMessages = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            isoMessages.add(pending.isoMessage);
+        }
+        CompletableFuture<String> response;
+        try {
+            response = client.sendBatchAsync(isoMessages);
+        } catch (RuntimeException e) {
+            requestSlots.release();
+            failAll(batch, e);
+            return;
+        }
+        response.whenComplete((body, failure) -> {
+            try {
+                if (failure != null) {
+                    failAll(batch, batchFailure(unwrap(failure)));
+                } else {
+                    complete(batch, body);
+                }
+            } finally {
+                requestSlots.release();
+            }
+        });
+    }
+
+    private static void complete(List<Pending> batch, String body) {
+        JsonNode responses;
+        try {
+            responses = MAPPER.readTree(body);
+        } catch (IOException e) {
+            failAll(batch, new IOException("Unreadable batch response: " + e.getMessage(), e));
+            return;
+        }
+        if (responses == null || !responses.isArray() || responses.size() != batch.size()) {
+            failAll(batch, new IOException("Batch response does not hold one result for each of the " +
+                                           batch.size() + " messages"));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).response.complete(responses.get(i).toString());
+        }
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ?
+                          failure.getCause() : failure;
+        return cause instanceof UncheckedIOException ? cause.getCause() : cause;
+    }
+
+    private static Throwable batchFailure(Throwable failure) {
+        return failure instanceof ParserHttpClient.StatusException ?
+               new IOException("Batch request failed: " + failure.getMessage(), failure) : failure;
+    }
+
+    private static void failAll(List<Pending> batch, Throwable failure) {
+        for (Pending pending : batch) {
+            pending.response.completeExceptionally(failure);
+        }
+    }
+
+    private void failQueued(Throwable failure) {
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.response.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * @return One line on the requests sent and their mean size
+     */
+    String summary() {
+        long sent = batches.sum();
+        return "Batching: " + messages.sum() + " messages in " + sent + " requests (" +
+               String.format("%.1f", sent > 0 ? (double) messages.sum() / sent : 0) + " per request)";
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(1_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        underlying.close();
+    }
+}
@@ -0,0 +1,110 @@
+package iso8583;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends report text to a file through a FileChannel and a fixed-size direct buffer.
+ * Text is encoded straight into the buffer, which is written to the channel when it fills up or
+ * when {@link #flush()} is called, so memory use does not depend on how much is written.
+ * A high surrogate at the end of one append is held back and encoded with the low surrogate that
+ * starts the next, so text may be appended a char at a time.
+ */
+final class ChannelReportWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    // High surrogate left over from the last append, or 0
+    private char pendingHighSurrogate;
+
+    /**
+     * Opens the file, replacing any previous report
+     */
+    ChannelReportWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                        StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    ChannelReportWriter append(CharSequence text) throws IOException {
+        if (text.length() == 0) {
+            return this;
+        }
+        int start = 0;
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            encode(CharBuffer.wrap(new char[] {high, text.charAt(0)}));
+            start = 1;
+        }
+        encode(CharBuffer.wrap(text, start, text.length()));
+        return this;
+    }
+
+    private void encode(CharBuffer chars) throws IOException {
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, false);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                // Only a trailing high surrogate is left unconsumed
+                if (chars.hasRemaining()) {
+                    pendingHighSurrogate = chars.get();
+                }
+                return;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    ChannelReportWriter append(char c) throws IOException {
+        if (c < 0x80 && pendingHighSurrogate == 0 && buffer.hasRemaining()) {
+            buffer.put((byte) c);
+            return this;
+        }
+        return append(String.valueOf(c));
+    }
+
+    ChannelReportWriter append(long value) throws IOException {
+        return append(Long.toString(value));
+    }
+
+    /**
+     * Writes the buffered bytes to the file
+     */
+    void flush() throws IOException {
+        drain();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (pendingHighSurrogate != 0) {
+                // Nothing followed it, so it can only be written as a replacement
+                pendingHighSurrogate = 0;
+                append('?');
+            }
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package iso8583;
+
+/**
+ * Stops sending to a parser that keeps failing at the transport. After failureThreshold consecutive
+ * failures the circuit opens and sends fail immediately for openMillis; then a single trial send is let
+ * through, which closes the circuit again if it gets a response and reopens it if not.
+ */
+final class CircuitBreaker {
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntilNanos;
+    private long timesOpened;
+
+    /**
+     * @param failureThreshold Consecutive transport failures that open the circuit, 0 to never open it
+     */
+    CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openMillis * 1_000_000L;
+    }
+
+    /**
+     * @return Whether a send may go ahead; if so, its outcome must be reported with onSuccess or onFailure
+     */
+    synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openUntilNanos >= 0) {
+                    state = State.HALF_OPEN;
+                    return true;
+                }
+                return false;
+            default:
+                // The trial send is still in flight
+                return false;
+        }
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (failureThreshold > 0 && consecutiveFailures >= failureThreshold)) {
+            if (state != State.OPEN) {
+                timesOpened++;
+            }
+            state = State.OPEN;
+            openUntilNanos = System.nanoTime() + openNanos;
+        }
+    }
+
+    /**
+     * Reports a send that ended without saying anything about the parser, e.g. because it was interrupted
+     */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            // Let the next send be the trial
+            state = State.OPEN;
+            openUntilNanos = System.nanoTime();
+        }
+    }
+
+    synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * @return How often the circuit has opened
+     */
+    synchronized long getTimesOpened() {
+        return timesOpened;
+    }
+}
@@ -0,0 +1,183 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of the compiled field config, written by the compile-config command and memory-mapped
+ * at startup instead of building a Jackson tree from the JSON. The snapshot records the size and CRC32C of
+ * the JSON it was compiled from and the version of the format and compiler that wrote it; if the JSON has
+ * changed since, or the snapshot comes from another version, it is stale and the JSON is read instead.
+ *
+ * Every field's compiled {@link FieldSpec} is stored with the test values of all categories in the config,
+ * so one snapshot serves any set of test categories. The field's JSON text, which only the result store
+ * fingerprint and {@link ISO8583TestGenerator#getValueFromJsonPath} need, stays in the mapping and is
+ * decoded on first use.
+ *
+ * File layout: the 8 byte magic "ISOCFG01", [int format version][long JSON size][int JSON CRC32C],
+ * [short category count][categories], [short field count], then per field [spec record][string field JSON],
+ * where a string is [int byte length, -1 for null][UTF-8 bytes].
+ */
+final class ConfigSnapshot {
+
+    private static final byte[] MAGIC = "ISOCFG01".getBytes(StandardCharsets.US_ASCII);
+    // Raise whenever the layout, the FieldSpec record or the way FieldSpecs.compile reads the config changes,
+    // so snapshots written by an older build are stale rather than misread
+    static final int FORMAT_VERSION = 1;
+
+    private ConfigSnapshot() {
+    }
+
+    /**
+     * @return Where the snapshot of a config file goes by default: next to it, ending in .snapshot
+     */
+    static Path defaultPath(Path json) {
+        String name = json.getFileName().toString();
+        return json.resolveSibling((name.endsWith(".json") ? name.substring(0, name.length() - 5) : name) + ".snapshot");
+    }
+
+    /**
+     * Compiles the config and writes its snapshot, replacing the file in one step
+     * @param json The content of the config file
+     * @return The number of fields written
+     */
+    static int write(byte[] json, ObjectNode fieldConfig, Path snapshot) throws IOException {
+        // Test categories are the *_value properties of any field, in config order
+        Set<String> categories = new LinkedHashSet<>();
+        for (Iterator<JsonNode> fields = fieldConfig.elements(); fields.hasNext(); ) {
+            for (Iterator<String> names = fields.next().fieldNames(); names.hasNext(); ) {
+                String name = names.next();
+                if (name.endsWith("_value")) {
+                    categories.add(name);
+                }
+            }
+        }
+        FieldSpecs fieldSpecs = FieldSpecs.compile(fieldConfig, new ArrayList<>(categories));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(json.length);
+        out.writeInt(crc(json));
+        out.writeShort(categories.size());
+        for (String category : categories) {
+            writeString(out, category);
+        }
+        out.writeShort(fieldSpecs.all().size());
+        for (FieldSpec spec : fieldSpecs.all()) {
+            spec.writeTo(out);
+            writeString(out, fieldSpecs.getFieldJson(spec.getKey()));
+        }
+        out.flush();
+
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        Files.write(temp, bytes.toByteArray());
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return fieldSpecs.all().size();
+    }
+
+    /**
+     * Loads the field specs from a snapshot of the given config
+     * @param json The current content of the config file
+     * @return The specs, or null if there is no snapshot or it was compiled from a different config
+     */
+    static FieldSpecs load(byte[] json, Path snapshot, List<String> testCategories) throws IOException {
+        if (!Files.isRegularFile(snapshot)) {
+            return null;
+        }
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            return read(mapped, json, testCategories);
+        } catch (RuntimeException e) {
+            // Cut short or corrupt, which is no different from stale. The file is only a cache, so any
+            // count, length or ordinal read from it may be garbage: a negative array size, an unknown
+            // enum ordinal or a read past the end all mean the same thing here
+            return null;
+        }
+    }
+
+    private static FieldSpecs read(MappedByteBuffer mapped, byte[] json, List<String> testCategories) {
+        ByteBuffer in = mapped.duplicate();
+        byte[] magic = new byte[MAGIC.length];
+        in.get(magic);
+        if (!Arrays.equals(magic, MAGIC) || in.getInt() != FORMAT_VERSION || in.getLong() != json.length || 
+            in.getInt() != crc(json)) {
+            return null;
+        }
+
+        List<String> snapshotCategories = new ArrayList<>();
+        for (int i = in.getShort(); i > 0; i--) {
+            snapshotCategories.add(readString(in));
+        }
+        // Where each requested category's values are in the snapshot's records
+        int[] categoryIndexes = new int[testCategories.size()];
+        for (int i = 0; i < categoryIndexes.length; i++) {
+            categoryIndexes[i] = snapshotCategories.indexOf(testCategories.get(i));
+        }
+
+        int fields = in.getShort();
+        List<FieldSpec> specs = new ArrayList<>(fields);
+        Map<String, Integer> jsonOffsets = new HashMap<>();
+        for (int i = 0; i < fields; i++) {
+            FieldSpec spec = new FieldSpec(in, categoryIndexes);
+            specs.add(spec);
+            jsonOffsets.put(spec.getKey(), in.position());
+            in.position(in.position() + Integer.BYTES + in.getInt(in.position()));
+        }
+        return FieldSpecs.of(specs, testCategories, key -> {
+            Integer offset = jsonOffsets.get(key);
+            return offset == null ? null : readString(mapped.duplicate().position(offset));
+        });
+    }
+
+    private static int crc(byte[] json) {
+        CRC32C crc = new CRC32C();
+        crc.update(json);
+        return (int) crc.getValue();
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,127 @@
+package iso8583;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only view of the shared valid field data with a few fields replaced.
+ * Used instead of copying the whole baseline map for every test case: creating an overlay only
+ * allocates the replaced keys and values, and lookups check those before falling back to the baseline.
+ */
+public final class FieldDataOverlay extends AbstractMap<String, String> {
+
+    private final Map<String, String> baseline;
+    private final String[] keys;
+    private final String[] values;
+
+    /**
+     * @param baseline The shared field data; must not be modified while the overlay is in use
+     * @param keys Field keys to replace, without duplicates
+     * @param values Replacement values, aligned with keys
+     */
+    public FieldDataOverlay(Map<String, String> baseline, String[] keys, String[] values) {
+        this.baseline = baseline;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @return The baseline with a single field replaced
+     */
+    public static FieldDataOverlay of(Map<String, String> baseline, String key, String value) {
+        return new FieldDataOverlay(baseline, new String[] {key}, new String[] {value});
+    }
+
+    @Override
+    public String get(Object key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return values[i];
+            }
+        }
+        return baseline.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        for (String replaced : keys) {
+            if (replaced.equals(key)) {
+                return true;
+            }
+        }
+        return baseline.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        int added = 0;
+        for (String key : keys) {
+            if (!baseline.containsKey(key)) {
+                added++;
+            }
+        }
+        return baseline.size() + added;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return FieldDataOverlay.this.size();
+            }
+        };
+    }
+
+    /**
+     * Baseline entries with replaced values substituted, followed by replaced keys the baseline lacks
+     * (such as bitmap overrides)
+     */
+    private final class EntryIterator implements Iterator<Entry<String, String>> {
+        private final Iterator<Entry<String, String>> baselineEntries = baseline.entrySet().iterator();
+        private int addedIndex;
+
+        @Override
+        public boolean hasNext() {
+            if (baselineEntries.hasNext()) {
+                return true;
+            }
+            skipPresentKeys();
+            return addedIndex < keys.length;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (baselineEntries.hasNext()) {
+                Entry<String, String> entry = baselineEntries.next();
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i].equals(entry.getKey())) {
+                        return new SimpleImmutableEntry<>(keys[i], values[i]);
+                    }
+                }
+                return entry;
+            }
+            skipPresentKeys();
+            if (addedIndex >= keys.length) {
+                throw new NoSuchElementException();
+            }
+            int i = addedIndex++;
+            return new SimpleImmutableEntry<>(keys[i], values[i]);
+        }
+
+        private void skipPresentKeys() {
+            while (addedIndex < keys.length && baseline.containsKey(keys[addedIndex])) {
+                addedIndex++;
+            }
+        }
+    }
+}
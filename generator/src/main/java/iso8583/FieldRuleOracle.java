@@ -0,0 +1,216 @@
+package iso8583;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decides for the fuzzer whether a packed message should be rejected, straight from the field config
+ * rather than through any parser: the MTI must be 4 digits and the bitmaps well formed, every field
+ * flagged in the bitmaps must be defined and present and no bytes may follow the last one, LL/LLL prefixes
+ * must be numbers within the field's max_length, and every value must pass the field's validation rules
+ * without being one of its invalid test values.
+ */
+final class FieldRuleOracle {
+
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private final FieldSpecs fieldSpecs;
+    private final boolean bcd;
+
+    FieldRuleOracle(FieldSpecs fieldSpecs, IsoMessagePacker.Encoding encoding) {
+        this.fieldSpecs = fieldSpecs;
+        this.bcd = encoding == IsoMessagePacker.Encoding.BCD;
+    }
+
+    /**
+     * @return The broken rule as "reason: detail", where only the detail names the offending value, or null
+     *         if the message keeps every rule
+     */
+    String violation(byte[] message, int length) {
+        Reader in = new Reader(message, length);
+        String mti = in.value(4, FieldSpec.Type.NUMERIC);
+        if (mti == null) {
+            return in.error("MTI");
+        }
+        for (int i = 0; i < mti.length(); i++) {
+            if (mti.charAt(i) < '0' || mti.charAt(i) > '9') {
+                return "Non-digit in MTI: " + mti;
+            }
+        }
+        String invalid = check(fieldSpecs.byKey("MTI"), "MTI", mti);
+        if (invalid != null) {
+            return invalid;
+        }
+        long primary = in.bitmap();
+        if (in.failure != null) {
+            return in.error("the primary bitmap");
+        }
+        long secondary = 0;
+        if (primary < 0) {
+            // Bit 1 flags the secondary bitmap
+            secondary = in.bitmap();
+            if (in.failure != null) {
+                return in.error("the secondary bitmap");
+            }
+        }
+
+        for (int fieldNumber = 2; fieldNumber <= FieldSpecs.MAX_FIELD_NUMBER; fieldNumber++) {
+            long bitmap = fieldNumber <= 64 ? primary : secondary;
+            if ((bitmap >>> (fieldNumber <= 64 ? 64 - fieldNumber : 128 - fieldNumber) & 1) == 0) {
+                continue;
+            }
+            FieldSpec spec = fieldSpecs.byNumber(fieldNumber);
+            String element = "field " + fieldNumber;
+            if (spec == null || (!spec.isVariable() && spec.getLength() < 0)) {
+                return "Bitmap flags an undefined field: " + fieldNumber;
+            }
+            int valueLength = spec.getLength();
+            if (spec.isVariable()) {
+                valueLength = in.lengthPrefix(spec.getLengthPrefixDigits());
+                if (valueLength < 0) {
+                    return in.error("the length prefix of " + element);
+                }
+                if (spec.getMaxLength() >= 0 && valueLength > spec.getMaxLength()) {
+                    return "Length prefix of " + element + " exceeds max_length " + spec.getMaxLength() + ": " +
+                           valueLength;
+                }
+            }
+            String value = in.value(valueLength, spec.getType());
+            if (value == null) {
+                return in.error(element);
+            }
+            invalid = check(spec, element, value);
+            if (invalid != null) {
+                return invalid;
+            }
+        }
+        if (in.position < length) {
+            return "Bytes after the last field flagged in the bitmaps: " + (length - in.position);
+        }
+        return null;
+    }
+
+    private static String check(FieldSpec spec, String element, String value) {
+        if (spec == null || spec.isConfiguredValidValue(value)) {
+            return null;
+        }
+        if (spec.isInvalidTestValue(value)) {
+            return "Invalid test value in " + element + ": " + value;
+        }
+        return spec.isValid(value) ? null : "Validation rules broken by " + element + ": " + value;
+    }
+
+    /**
+     * Reads elements in the wire encoding; a read that fails returns null (or -1) and leaves the reason in failure
+     */
+    private final class Reader {
+        private final byte[] message;
+        private final int length;
+        int position;
+        String failure;
+
+        Reader(byte[] message, int length) {
+            this.message = message;
+            this.length = length;
+        }
+
+        String error(String element) {
+            return failure + " in " + element;
+        }
+
+        private boolean available(int bytes) {
+            if (position + bytes > length) {
+                failure = "Message ends";
+                return false;
+            }
+            return true;
+        }
+
+        long bitmap() {
+            if (bcd) {
+                if (!available(8)) {
+                    return 0;
+                }
+                long bitmap = 0;
+                for (int i = 0; i < 8; i++) {
+                    bitmap = bitmap << 8 | (message[position++] & 0xFF);
+                }
+                return bitmap;
+            }
+            if (!available(16)) {
+                return 0;
+            }
+            long bitmap = 0;
+            for (int i = 0; i < 16; i++) {
+                int nibble = Character.digit(message[position++] & 0xFF, 16);
+                if (nibble < 0) {
+                    failure = "Non-hex character";
+                    return 0;
+                }
+                bitmap = bitmap << 4 | nibble;
+            }
+            return bitmap;
+        }
+
+        /**
+         * @return The length the prefix gives, or -1
+         */
+        int lengthPrefix(int digits) {
+            String prefix = bcd ? value(digits, FieldSpec.Type.NUMERIC) : text(digits);
+            if (prefix == null) {
+                return -1;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (prefix.charAt(i) < '0' || prefix.charAt(i) > '9') {
+                    failure = "Non-digit";
+                    return -1;
+                }
+            }
+            return Integer.parseInt(prefix);
+        }
+
+        /**
+         * @param chars The value's length in characters, as the field config counts it
+         */
+        String value(int chars, FieldSpec.Type type) {
+            if (!bcd || type == FieldSpec.Type.ALPHANUMERIC) {
+                return text(chars);
+            }
+            StringBuilder value = new StringBuilder(chars);
+            if (type == FieldSpec.Type.BINARY) {
+                if (!available((chars + 7) / 8)) {
+                    return null;
+                }
+                for (int i = 0; i < chars; i++) {
+                    value.append((message[position + i / 8] >>> (7 - i % 8) & 1) == 1 ? '1' : '0');
+                }
+                position += (chars + 7) / 8;
+                return value.toString();
+            }
+            int bytes = (chars + 1) / 2;
+            if (!available(bytes)) {
+                return null;
+            }
+            // Odd length numeric values carry a leading pad nibble, odd length hex values a trailing one
+            int skip = type == FieldSpec.Type.NUMERIC ? chars & 1 : 0;
+            for (int i = skip; i < chars + skip; i++) {
+                int nibble = (message[position + i / 2] & 0xFF) >>> (i % 2 == 0 ? 4 : 0) & 0x0F;
+                if (type == FieldSpec.Type.NUMERIC && nibble > 9) {
+                    failure = "Invalid BCD digit";
+                    return null;
+                }
+                value.append((char) HEX_DIGITS[nibble]);
+            }
+            position += bytes;
+            return value.toString();
+        }
+
+        private String text(int chars) {
+            if (!available(chars)) {
+                return null;
+            }
+            String text = new String(message, position, chars, StandardCharsets.ISO_8859_1);
+            position += chars;
+            return text;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Immutable, precompiled view of one field definition from the field config.
+ * Everything the hot path needs (format, type, validation rules, valid and invalid test values)
+ * is resolved once at load time, and {@link #isValid(String)} checks a value without allocating.
+ */
+public final class FieldSpec {
+
+    public enum Format { FIXED, LLVAR, LLLVAR, BITMAP }
+
+    public enum Type { ALPHANUMERIC, NUMERIC, BINARY, HEX }
+
+    private enum Charset { ANY, DIGITS, BITS, HEX }
+
+    private enum DateTimeFormat { NONE, MMDDHHMMSS, HHMMSS, MMDD }
+
+    private final String key;
+    private final int fieldNumber;
+    private final String name;
+    private final Format format;
+    private final Type type;
+    private final int length;
+    // Declared maximum length of a variable field (max_length, else the maxLength rule), -1 if none
+    private final int declaredMaxLength;
+    private final String validExample;
+    private final String validExampleRaw;
+    private final String baselineValue;
+    private final String namedValidExample;
+
+    // Test values, aligned with the categories the spec was compiled for; null where the field has none
+    private final String[] invalidValues;
+    private final String[] invalidDescriptions;
+
+    // Validation rules; the rule checks only apply when the config has validationRules
+    private final boolean hasRules;
+    private final int exactLength;
+    private final int maxLength;
+    private final Charset charset;
+    private final DateTimeFormat dateTimeFormat;
+
+    FieldSpec(String key, JsonNode field, List<String> testCategories) {
+        this.key = key;
+        this.fieldNumber = parseFieldNumber(key);
+        this.name = field.has("name") ? field.get("name").asText() : key;
+
+        String format = text(field, "format").toLowerCase();
+        this.format = format.equals("llvar") ? Format.LLVAR : format.equals("lllvar") ? Format.LLLVAR :
+                      format.equals("bitmap") ? Format.BITMAP : Format.FIXED;
+        String type = text(field, "type").toLowerCase();
+        this.type = type.equals("numeric") ? Type.NUMERIC : type.equals("binary") ? Type.BINARY :
+                    type.equals("hex") ? Type.HEX : Type.ALPHANUMERIC;
+
+        this.length = field.has("length") ? field.get("length").asInt() : -1;
+
+        this.validExample = field.has("validExample") ? field.get("validExample").asText() : null;
+        this.validExampleRaw = field.has("validExampleRaw") ? field.get("validExampleRaw").asText() : null;
+        String sampleData = field.has("SampleData") ? field.get("SampleData").asText() : null;
+        if (this.format == Format.BITMAP) {
+            // Bitmaps are computed by the packer from the fields present
+            this.baselineValue = null;
+        } else if (isVariable()) {
+            // For variable length fields, use the raw value if available
+            this.baselineValue = firstNonNull(validExampleRaw, validExample, sampleData);
+        } else {
+            this.baselineValue = firstNonNull(validExample, validExampleRaw, sampleData);
+        }
+
+        JsonNode rules = field.get("validationRules");
+        if (validExample != null) {
+            this.namedValidExample = validExample;
+        } else if (rules != null && rules.has("validExample")) {
+            this.namedValidExample = rules.get("validExample").asText();
+        } else {
+            this.namedValidExample = null;
+        }
+
+        this.invalidValues = new String[testCategories.size()];
+        this.invalidDescriptions = new String[testCategories.size()];
+        for (int i = 0; i < testCategories.size(); i++) {
+            String category = testCategories.get(i);
+            if (field.has(category)) {
+                invalidValues[i] = field.get(category).asText();
+                String descriptionKey = category.replace("value", "description");
+                invalidDescriptions[i] = field.has(descriptionKey) ? field.get(descriptionKey).asText() : "Unknown error";
+            }
+        }
+
+        this.hasRules = rules != null;
+        this.exactLength = rules != null && rules.has("exactLength") ? rules.get("exactLength").asInt() : -1;
+        this.maxLength = rules != null && rules.has("maxLength") ? rules.get("maxLength").asInt() : -1;
+        this.declaredMaxLength = field.has("max_length") ? field.get("max_length").asInt() :
+                                 isVariable() && length >= 0 ? length : maxLength;
+
+        String allowedChars = rules != null ? text(rules, "allowedChars") : "";
+        if (this.type == Type.NUMERIC || allowedChars.equals("0-9")) {
+            this.charset = Charset.DIGITS;
+        } else if (this.type == Type.BINARY || allowedChars.equals("0-1")) {
+            this.charset = Charset.BITS;
+        } else if (this.type == Type.HEX) {
+            this.charset = Charset.HEX;
+        } else {
+            this.charset = Charset.ANY;
+        }
+
+        String dateTimeFormat = rules != null && rules.has("isDateTime") && rules.get("isDateTime").asBoolean() ?
+                                text(rules, "format") : "";
+        this.dateTimeFormat = dateTimeFormat.equals("MMDDhhmmss") ? DateTimeFormat.MMDDHHMMSS :
+                              dateTimeFormat.equals("hhmmss") ? DateTimeFormat.HHMMSS :
+                              dateTimeFormat.equals("MMDD") ? DateTimeFormat.MMDD : DateTimeFormat.NONE;
+    }
+
+    /**
+     * Reads a spec written by {@link #writeTo(DataOutputStream)} into a {@link ConfigSnapshot}
+     * @param categoryIndexes For each category the spec is compiled for, the index of its values in the
+     *                        record, or -1 if the snapshot has none
+     */
+    FieldSpec(ByteBuffer in, int[] categoryIndexes) {
+        this.key = ConfigSnapshot.readString(in);
+        this.fieldNumber = parseFieldNumber(key);
+        this.name = ConfigSnapshot.readString(in);
+        this.format = Format.values()[in.get()];
+        this.type = Type.values()[in.get()];
+        this.length = in.getInt();
+        this.declaredMaxLength = in.getInt();
+        this.validExample = ConfigSnapshot.readString(in);
+        this.validExampleRaw = ConfigSnapshot.readString(in);
+        this.baselineValue = ConfigSnapshot.readString(in);
+        this.namedValidExample = ConfigSnapshot.readString(in);
+
+        String[] values = new String[in.getShort()];
+        String[] descriptions = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ConfigSnapshot.readString(in);
+            descriptions[i] = ConfigSnapshot.readString(in);
+        }
+        this.invalidValues = new String[categoryIndexes.length];
+        this.invalidDescriptions = new String[categoryIndexes.length];
+        for (int i = 0; i < categoryIndexes.length; i++) {
+            if (categoryIndexes[i] >= 0) {
+                invalidValues[i] = values[categoryIndexes[i]];
+                invalidDescriptions[i] = descriptions[categoryIndexes[i]];
+            }
+        }
+
+        this.hasRules = in.get() != 0;
+        this.exactLength = in.getInt();
+        this.maxLength = in.getInt();
+        this.charset = Charset.values()[in.get()];
+        this.dateTimeFormat = DateTimeFormat.values()[in.get()];
+    }
+
+    /**
+     * Writes the compiled spec, with the test values of every category it was compiled for
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        ConfigSnapshot.writeString(out, key);
+        ConfigSnapshot.writeString(out, name);
+        out.writeByte(format.ordinal());
+        out.writeByte(type.ordinal());
+        out.writeInt(length);
+        out.writeInt(declaredMaxLength);
+        ConfigSnapshot.writeString(out, validExample);
+        ConfigSnapshot.writeString(out, validExampleRaw);
+        ConfigSnapshot.writeString(out, baselineValue);
+        ConfigSnapshot.writeString(out, namedValidExample);
+
+        out.writeShort(invalidValues.length);
+        for (int i = 0; i < invalidValues.length; i++) {
+            ConfigSnapshot.writeString(out, invalidValues[i]);
+            ConfigSnapshot.writeString(out, invalidDescriptions[i]);
+        }
+
+        out.writeBoolean(hasRules);
+        out.writeInt(exactLength);
+        out.writeInt(maxLength);
+        out.writeByte(charset.ordinal());
+        out.writeByte(dateTimeFormat.ordinal());
+    }
+
+    /**
+     * Checks a value against the field's validation rules: length, allowed characters and,
+     * for date/time fields, the month/day/hour/minute/second ranges.
+     * Invalid test values are not recognised here, see {@link #isInvalidTestValue(String)}.
+     */
+    public boolean isValid(String value) {
+        if (!hasRules) {
+            return true;
+        }
+
+        int length = value.length();
+        if (isVariable()) {
+            // Variable length fields use raw values in our tests
+            if (maxLength >= 0 && length > maxLength) {
+                return false;
+            }
+        } else if (exactLength >= 0 && length != exactLength) {
+            return false;
+        }
+
+        if (charset != Charset.ANY) {
+            if (length == 0) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (!charset(charset, value.charAt(i))) {
+                    return false;
+                }
+            }
+        }
+
+        switch (dateTimeFormat) {
+            case MMDDHHMMSS:
+                return length != 10 || (inRange(value, 0, 1, 12) && inRange(value, 2, 1, 31) &&
+                                        inRange(value, 4, 0, 23) && inRange(value, 6, 0, 59));
+            case HHMMSS:
+                return length != 6 || (inRange(value, 0, 0, 23) && inRange(value, 2, 0, 59) &&
+                                       inRange(value, 4, 0, 59));
+            case MMDD:
+                return length != 4 || (inRange(value, 0, 1, 12) && inRange(value, 2, 1, 31));
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @return True if the value is one of this field's invalid test values
+     */
+    public boolean isInvalidTestValue(String value) {
+        for (String invalidValue : invalidValues) {
+            if (invalidValue != null && invalidValue.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if the value is one of the valid examples the config declares for this field
+     */
+    public boolean isConfiguredValidValue(String value) {
+        return value.equals(validExample) || value.equals(validExampleRaw) || value.equals(baselineValue);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return The numeric data element number, 0 for the MTI, or -1 for bitmaps and subfields such as "63.1"
+     */
+    public int getFieldNumber() {
+        return fieldNumber;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return The configured length: exact for fixed fields, maximum for LL/LLL fields, -1 if not set
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return The most characters a variable field may hold, or -1 if the config does not say
+     */
+    public int getMaxLength() {
+        return declaredMaxLength;
+    }
+
+    public boolean isVariable() {
+        return format == Format.LLVAR || format == Format.LLLVAR;
+    }
+
+    /**
+     * @return Digits in the LL/LLL length prefix, or 0 for fields without one
+     */
+    public int getLengthPrefixDigits() {
+        return format == Format.LLVAR ? 2 : format == Format.LLLVAR ? 3 : 0;
+    }
+
+    public String getValidExample() {
+        return validExample;
+    }
+
+    public String getValidExampleRaw() {
+        return validExampleRaw;
+    }
+
+    /**
+     * @return The value used for this field in the all-valid baseline message, or null if it has none
+     */
+    public String getBaselineValue() {
+        return baselineValue;
+    }
+
+    /**
+     * @return validExample, falling back to validationRules.validExample
+     */
+    String getNamedValidExample() {
+        return namedValidExample;
+    }
+
+    /**
+     * @param categoryIndex Index into the categories the spec was compiled for
+     * @return The invalid test value for the category, or null if the field has none
+     */
+    public String getInvalidValue(int categoryIndex) {
+        return invalidValues[categoryIndex];
+    }
+
+    public String getInvalidDescription(int categoryIndex) {
+        return invalidDescriptions[categoryIndex];
+    }
+
+    private static boolean charset(Charset charset, char c) {
+        switch (charset) {
+            case DIGITS:
+                return c >= '0' && c <= '9';
+            case BITS:
+                return c == '0' || c == '1';
+            case HEX:
+                return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'F') || (c >= 'a' && c <= 'f');
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Checks that the two digits at offset form a number within [min, max]
+     */
+    private static boolean inRange(String value, int offset, int min, int max) {
+        char high = value.charAt(offset);
+        char low = value.charAt(offset + 1);
+        if (high < '0' || high > '9' || low < '0' || low > '9') {
+            return false;
+        }
+        int number = (high - '0') * 10 + (low - '0');
+        return number >= min && number <= max;
+    }
+
+    private static int parseFieldNumber(String key) {
+        if (key.equals("MTI")) {
+            return 0;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) < '0' || key.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        return key.isEmpty() ? -1 : Integer.parseInt(key);
+    }
+
+    private static String text(JsonNode node, String property) {
+        return node.has(property) ? node.get(property).asText() : "";
+    }
+
+    private static String firstNonNull(String first, String second, String third) {
+        return first != null ? first : second != null ? second : third;
+    }
+}
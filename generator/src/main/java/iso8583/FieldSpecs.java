@@ -0,0 +1,109 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The field config compiled into {@link FieldSpec}s, with lookups by config key, data element
+ * number and field name. Built once at load time and read-only afterwards.
+ */
+public final class FieldSpecs {
+
+    public static final int MAX_FIELD_NUMBER = 128;
+
+    private final List<String> testCategories;
+    private final List<FieldSpec> specs;
+    private final FieldSpec[] byNumber = new FieldSpec[MAX_FIELD_NUMBER + 1];
+    private final Map<String, FieldSpec> byKey = new HashMap<>();
+    private final Map<String, String> validExampleByName = new HashMap<>();
+    // The JSON text of a field's config node, by config key
+    private final Function<String, String> fieldJson;
+
+    private FieldSpecs(List<FieldSpec> specs, List<String> testCategories, Function<String, String> fieldJson) {
+        this.testCategories = List.copyOf(testCategories);
+        this.fieldJson = fieldJson;
+        for (FieldSpec spec : specs) {
+            byKey.put(spec.getKey(), spec);
+            if (spec.getFieldNumber() >= 0 && spec.getFieldNumber() <= MAX_FIELD_NUMBER) {
+                byNumber[spec.getFieldNumber()] = spec;
+            }
+            // First field in config order with a valid example wins, as with the original linear scan
+            if (spec.getNamedValidExample() != null) {
+                validExampleByName.putIfAbsent(spec.getName(), spec.getNamedValidExample());
+            }
+        }
+        this.specs = Collections.unmodifiableList(specs);
+    }
+
+    /**
+     * Compiles the field config
+     * @param fieldConfig The field config, keyed by field number
+     * @param testCategories The invalid test categories whose values each spec should carry
+     */
+    public static FieldSpecs compile(ObjectNode fieldConfig, List<String> testCategories) {
+        List<FieldSpec> specs = new ArrayList<>(fieldConfig.size());
+        for (Iterator<Map.Entry<String, JsonNode>> it = fieldConfig.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            specs.add(new FieldSpec(entry.getKey(), entry.getValue(), testCategories));
+        }
+        return new FieldSpecs(specs, testCategories, key -> {
+            JsonNode node = fieldConfig.get(key);
+            return node != null ? node.toString() : null;
+        });
+    }
+
+    /**
+     * Wraps specs that were compiled earlier, e.g. read from a {@link ConfigSnapshot}
+     * @param fieldJson Gives the JSON text of a field's config node
+     */
+    static FieldSpecs of(List<FieldSpec> specs, List<String> testCategories, Function<String, String> fieldJson) {
+        return new FieldSpecs(specs, testCategories, fieldJson);
+    }
+
+    /**
+     * @return All specs, in config order
+     */
+    public List<FieldSpec> all() {
+        return specs;
+    }
+
+    /**
+     * @return The spec for a config key such as "2", "MTI" or "63.1", or null
+     */
+    public FieldSpec byKey(String key) {
+        return byKey.get(key);
+    }
+
+    /**
+     * @return The spec for a data element number (0 is the MTI), or null
+     */
+    public FieldSpec byNumber(int fieldNumber) {
+        return fieldNumber >= 0 && fieldNumber <= MAX_FIELD_NUMBER ? byNumber[fieldNumber] : null;
+    }
+
+    /**
+     * @return The valid example of the first field with the given name, or null
+     */
+    public String validExampleByName(String name) {
+        return validExampleByName.get(name);
+    }
+
+    /**
+     * @return The field's config node as compact JSON text, or null if there is no such field
+     */
+    public String getFieldJson(String key) {
+        return fieldJson.apply(key);
+    }
+
+    public List<String> getTestCategories() {
+        return testCategories;
+    }
+}
@@ -0,0 +1,1290 @@
+package iso8583;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+public class ISO8583TestGenerator {
+    
+    /**
+     * The field config as read from the JSON or generated from the base config; null when it was loaded
+     * from a config snapshot (run with -Diso8583.configSnapshot=none to always read the JSON)
+     * @deprecated Use {@link #getValueFromJsonPath(String)}, which works whichever way the config was loaded
+     */
+    @Deprecated
+    public static ObjectNode fieldConfig;
+    // The field config compiled once at load time; used on every hot path instead of JsonNode lookups
+    static FieldSpecs fieldSpecs;
+    // Snapshot of the field config written by "compile-config" (see ConfigSnapshot), loaded instead of the JSON
+    // while it is up to date; defaults to the config file name ending in .snapshot, "none" always reads the JSON
+    private static final String CONFIG_SNAPSHOT = System.getProperty("iso8583.configSnapshot");
+    // With -Diso8583.generate.seed the test values are generated in the runner from the base config in
+    // iso8583.generate.config (see TestCaseGenerator) instead of read from iso8583_field_config.json
+    private static final Long GENERATE_SEED = Long.getLong("iso8583.generate.seed");
+    private static final String GENERATE_CONFIG = System.getProperty("iso8583.generate.config", "iso_config.json");
+    private static IsoMessagePacker messagePacker;
+    // Wire encoding of built messages: ascii (default) or bcd
+    private static final IsoMessagePacker.Encoding MESSAGE_ENCODING = 
+            IsoMessagePacker.Encoding.valueOf(System.getProperty("iso8583.encoding", "ascii").toUpperCase());
+    // Parser transport settings, overridable with -Diso8583.parserUrl=http://host:port/iso8583/parse etc.
+    private static final String PARSER_URL = System.getProperty("iso8583.parserUrl", "http://ip:port/iso8583/parse");
+    private static final boolean PARSER_HTTP2 = Boolean.getBoolean("iso8583.http2");
+    private static final Duration CONNECT_TIMEOUT = Duration.ofMillis(Long.getLong("iso8583.connectTimeoutMs", 10_000));
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMillis(Long.getLong("iso8583.requestTimeoutMs", 30_000));
+    // Where messages go: "http" to the parser service, "inprocess" to a parser library called directly
+    // (-Diso8583.inProcessParser picks the ServiceLoader provider), "loopback" to that parser behind a local stub
+    private static final String TRANSPORT = System.getProperty("iso8583.transport", "http");
+    private static final String IN_PROCESS_PARSER = System.getProperty("iso8583.inProcessParser");
+    // Synchronous sends that get no answer are retried iso8583.retries times, backing off from iso8583.retryBackoffMs;
+    // after iso8583.circuitBreaker.failures consecutive failures sends fail fast for iso8583.circuitBreaker.openMs.
+    // With -Diso8583.adaptiveConcurrency=true the messages in flight follow the parser's latency, up to CONCURRENCY
+    private static final int RETRIES = Math.max(0, Integer.getInteger("iso8583.retries", 2));
+    private static final long RETRY_BACKOFF_MS = Long.getLong("iso8583.retryBackoffMs", 50);
+    private static final int CIRCUIT_BREAKER_FAILURES = Integer.getInteger("iso8583.circuitBreaker.failures", 5);
+    private static final long CIRCUIT_BREAKER_OPEN_MS = Long.getLong("iso8583.circuitBreaker.openMs", 5_000);
+    private static final boolean ADAPTIVE_CONCURRENCY = Boolean.getBoolean("iso8583.adaptiveConcurrency");
+    // With -Diso8583.batch.size above 1, concurrent sends go to the parser together as JSON array requests of up
+    // to that many messages, each batch waiting up to iso8583.batch.windowMs to fill (0 sends whatever has queued
+    // as soon as one of iso8583.batch.inFlight requests is free)
+    private static final int BATCH_SIZE = Integer.getInteger("iso8583.batch.size", 0);
+    private static final long BATCH_WINDOW_MS = Long.getLong("iso8583.batch.windowMs", 0);
+    private static final int BATCH_IN_FLIGHT = Math.max(1, Integer.getInteger("iso8583.batch.inFlight", 2));
+    private static ResilientParserTransport parserTransport;
+    private static BatchingParserTransport batchingTransport;
+    static final List<String> TEST_CATEGORIES = List.of(
+            "invalid_type_value", 
+            "invalid_special_chars_value", 
+            "invalid_length_short_value", 
+            "invalid_length_long_value",
+            "invalid_empty_value",
+            "invalid_length_exceed_max_value",
+            "invalid_datetime_value",
+            "invalid_time_value",
+            "invalid_date_value",
+            "invalid_binary_chars_value"
+            // "invalid_hex_chars_value",
+            // "invalid_bitmap_format_value",
+            // "invalid_bitmap_length_value"
+    );
+    // Number of field/category cases run at the same time; 1 keeps the original sequential behaviour
+    private static final int CONCURRENCY = Math.max(1, Integer.getInteger("iso8583.concurrency", 1));
+    // "test" runs the functional checks, "load" drives the parser at a fixed rate (see runLoadTest),
+    // "combinations" breaks several fields per message (see runCombinationTests), "replay" re-runs a capture
+    // (see runReplay), "fuzz" sends mutated messages (see runFuzzTest)
+    private static final String MODE = System.getProperty("iso8583.mode", "test");
+    // With -Diso8583.capture=<file> every message sent in the test and combinations modes is logged with its
+    // response and timing (see TrafficLog)
+    private static final String CAPTURE_FILE = System.getProperty("iso8583.capture");
+    private static TrafficLog trafficLog;
+    static final boolean VERBOSE = Verbose.VERBOSE;
+    // Metrics export: -Diso8583.metrics.port serves Prometheus text at /metrics,
+    // -Diso8583.metrics.jsonFile writes a JSON snapshot every iso8583.metrics.intervalSec and at the end
+    private static final Integer METRICS_PORT = Integer.getInteger("iso8583.metrics.port");
+    private static final String METRICS_JSON_FILE = System.getProperty("iso8583.metrics.jsonFile");
+    private static final long METRICS_INTERVAL_SECONDS = Long.getLong("iso8583.metrics.intervalSec", 10);
+    private static final TestMetrics METRICS = new TestMetrics();
+    // Identical messages within a run are sent once (see ResponseCache); recovery sends can be forced
+    // to go to the parser every time with -Diso8583.forceRecoverySends=true if it may be stateful
+    private static final boolean RESPONSE_CACHE = Boolean.parseBoolean(System.getProperty("iso8583.responseCache", "true"));
+    private static final boolean FORCE_RECOVERY_SENDS = Boolean.getBoolean("iso8583.forceRecoverySends");
+    // Report formats written as results come in (text, jsonl, junit) and how many cases are
+    // buffered before they are written out
+    private static final String RESULT_FORMATS = System.getProperty("iso8583.results.formats", "text");
+    private static final int RESULT_FLUSH_EVERY = Math.max(1, Integer.getInteger("iso8583.results.flushEvery", 64));
+    // With -Diso8583.parserVersion set, per-field results are kept in iso8583.resultStore and reused by later
+    // runs while the field's config, the valid baseline, the parser version and the transport are unchanged
+    private static final String PARSER_VERSION = System.getProperty("iso8583.parserVersion");
+    private static final String RESULT_STORE = System.getProperty("iso8583.resultStore", "iso8583_result_store.bin");
+    // Part of the test matrix this process runs, from --shard i/n (or -Diso8583.shard); null runs all of it
+    private static Shard shard;
+    
+    /**
+     * Runs the tests, or with "--shard i/n" one shard of them.
+     * "merge shard1.jsonl shard2.jsonl ..." combines the JSONL results of every shard into one report.
+     * "compile-config [config.json [snapshot]]" writes the config snapshot later runs start from.
+     * "generate [iso_config.json [seed [field]]]" prints the generated test values as JSON lines.
+     */
+    public static void main(String[] args) {
+        try {
+            if (args.length > 0 && args[0].equals("compile-config")) {
+                compileConfigSnapshot(args.length > 1 ? args[1] : "iso8583_field_config.json", 
+                                      args.length > 2 ? args[2] : null);
+                return;
+            }
+            if (args.length > 0 && args[0].equals("generate")) {
+                printGeneratedCases(args.length > 1 ? args[1] : GENERATE_CONFIG, 
+                                    args.length > 2 ? Long.parseLong(args[2]) : GENERATE_SEED != null ? GENERATE_SEED : 1,
+                                    args.length > 3 ? args[3] : null);
+                return;
+            }
+            
+            if (GENERATE_SEED != null) {
+                generateFieldConfig(GENERATE_CONFIG, GENERATE_SEED);
+            } else {
+                // Load the field configuration from JSON file
+                loadFieldConfig("iso8583_field_config.json");
+            }
+            
+            if (args.length > 0 && args[0].equals("merge")) {
+                mergeShardResults(Arrays.asList(args).subList(1, args.length));
+                return;
+            }
+            shard = parseShard(args);
+            
+            if (METRICS_PORT != null) {
+                METRICS.startPrometheusEndpoint(METRICS_PORT);
+            }
+            if (METRICS_JSON_FILE != null) {
+                METRICS.startJsonSnapshots(Paths.get(METRICS_JSON_FILE), METRICS_INTERVAL_SECONDS);
+            }
+            
+            if (CAPTURE_FILE != null) {
+                if (MODE.equals("load") || MODE.equals("replay") || MODE.equals("fuzz")) {
+                    throw new IllegalArgumentException("Capture applies to the test and combinations modes, not " + 
+                                                       MODE + " mode");
+                }
+                trafficLog = TrafficLog.create(Paths.get(CAPTURE_FILE));
+            }
+            
+            if (MODE.equals("load")) {
+                runLoadTest();
+            } else if (MODE.equals("replay")) {
+                runReplay();
+            } else if (MODE.equals("fuzz")) {
+                runFuzzTest();
+            } else if (MODE.equals("combinations")) {
+                runCombinationTests();
+            } else {
+                // Generate all test cases
+                generateAndRunTests();
+            }
+            
+        } catch (Exception e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            if (METRICS_JSON_FILE != null) {
+                METRICS.writeJsonSnapshot(Paths.get(METRICS_JSON_FILE));
+            }
+            METRICS.stop();
+            closeTrafficLog();
+            if (parserTransport != null) {
+                parserTransport.close();
+            }
+        }
+    }
+    
+    private static void closeTrafficLog() {
+        if (trafficLog == null) {
+            return;
+        }
+        try {
+            trafficLog.close();
+            System.out.println("Captured " + trafficLog.getRecords() + " messages to " + CAPTURE_FILE);
+        } catch (IOException e) {
+            System.err.println("Error writing capture: " + e.getMessage());
+        }
+        trafficLog = null;
+    }
+    
+    private static Shard parseShard(String[] args) {
+        String spec = System.getProperty("iso8583.shard");
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--shard") && i + 1 < args.length) {
+                spec = args[++i];
+            } else if (args[i].startsWith("--shard=")) {
+                spec = args[i].substring("--shard=".length());
+            } else {
+                throw new IllegalArgumentException("Unknown argument " + args[i] + 
+                                                   ", expected --shard i/n or merge <shard results...>");
+            }
+        }
+        if (spec != null && !MODE.equals("test")) {
+            throw new IllegalArgumentException("Sharding applies to the functional tests, not " + MODE + " mode");
+        }
+        return spec != null ? Shard.parse(spec) : null;
+    }
+    
+    /**
+     * Writes the report of a sharded run from each shard's JSONL results
+     */
+    private static void mergeShardResults(List<String> shardFiles) throws IOException {
+        if (shardFiles.isEmpty()) {
+            throw new IllegalArgumentException("merge needs the JSONL result file of every shard");
+        }
+        List<Path> files = new ArrayList<>();
+        for (String file : shardFiles) {
+            files.add(Paths.get(file));
+        }
+        try (ResultSinks results = ResultSinks.open(RESULT_FORMATS, "iso8583_parser_test_results")) {
+            int tests = ShardMerger.merge(files, fieldSpecs, results);
+            System.out.println("Merged " + tests + " test results from " + files.size() + " shards into " + 
+                               String.join(", ", results.getFiles()));
+        }
+    }
+    
+    /**
+     * Loads the field config from its snapshot if that is up to date, else from the JSON
+     */
+    static void loadFieldConfig(String filePath) throws IOException {
+        Path configFile = Paths.get(filePath);
+        byte[] content = Files.readAllBytes(configFile);
+        Path snapshot = configSnapshotPath(configFile, CONFIG_SNAPSHOT);
+        fieldSpecs = snapshot != null ? ConfigSnapshot.load(content, snapshot, TEST_CATEGORIES) : null;
+        fieldConfig = null;
+        if (fieldSpecs == null) {
+            if (snapshot != null && Files.exists(snapshot)) {
+                System.err.println("Config snapshot " + snapshot + " does not match " + configFile + 
+                                   " or this version, reading the JSON instead; run compile-config to update it");
+            }
+            fieldConfig = (ObjectNode) JsonMapper.INSTANCE.readTree(content);
+            fieldSpecs = FieldSpecs.compile(fieldConfig, TEST_CATEGORIES);
+        }
+        prepareForFieldSpecs();
+    }
+    
+    /**
+     * Builds the field config from the base config, with test values generated from the seed
+     */
+    static void generateFieldConfig(String baseConfigPath, long seed) throws IOException {
+        ObjectNode baseConfig = (ObjectNode) JsonMapper.INSTANCE.readTree(Paths.get(baseConfigPath).toFile());
+        fieldConfig = new TestCaseGenerator(baseConfig, seed).extendedConfig();
+        fieldSpecs = FieldSpecs.compile(fieldConfig, TEST_CATEGORIES);
+        System.out.println("Test values generated from " + baseConfigPath + " with seed " + seed);
+        prepareForFieldSpecs();
+    }
+    
+    /**
+     * Writes the generated test values, one JSON object per line, as they are generated
+     * @param field Only this field's values, or null for all
+     */
+    private static void printGeneratedCases(String baseConfigPath, long seed, String field) throws IOException {
+        ObjectNode baseConfig = (ObjectNode) JsonMapper.INSTANCE.readTree(Paths.get(baseConfigPath).toFile());
+        TestCaseGenerator generator = new TestCaseGenerator(baseConfig, seed);
+        Stream<TestCaseGenerator.TestCase> cases = field != null ? generator.cases(field).stream() : generator.cases();
+        try (JsonGenerator json = JsonMapper.INSTANCE.getFactory().createGenerator(System.out)) {
+            json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            json.setRootValueSeparator(new SerializedString("\n"));
+            for (Iterator<TestCaseGenerator.TestCase> it = cases.iterator(); it.hasNext(); ) {
+                TestCaseGenerator.TestCase testCase = it.next();
+                json.writeStartObject();
+                json.writeStringField("field", testCase.field);
+                json.writeStringField("category", testCase.category.replace("_value", ""));
+                json.writeStringField("value", testCase.value);
+                json.writeStringField("description", testCase.description);
+                json.writeNumberField("fieldSeed", testCase.seed);
+                json.writeEndObject();
+            }
+            json.writeRaw('\n');
+        }
+    }
+    
+    /**
+     * Sets up the message packer and the parser transport for the loaded field specs
+     */
+    private static void prepareForFieldSpecs() throws IOException {
+        messagePacker = new IsoMessagePacker(fieldSpecs, MESSAGE_ENCODING);
+        if (parserTransport != null) {
+            parserTransport.close();
+        }
+        AdaptiveConcurrencyLimiter limiter = ADAPTIVE_CONCURRENCY ? 
+                new AdaptiveConcurrencyLimiter(Math.min(4, CONCURRENCY), CONCURRENCY) : null;
+        parserTransport = new ResilientParserTransport(createParserTransport(), limiter, 
+                new CircuitBreaker(CIRCUIT_BREAKER_FAILURES, CIRCUIT_BREAKER_OPEN_MS), RETRIES, RETRY_BACKOFF_MS);
+    }
+    
+    /**
+     * Shared JSON mapper, created on first use so runs that start from a config snapshot never build one
+     */
+    private static final class JsonMapper {
+        static final ObjectMapper INSTANCE = new ObjectMapper();
+    }
+    
+    /**
+     * @return The snapshot file to use for a config file, or null for none
+     */
+    private static Path configSnapshotPath(Path configFile, String setting) {
+        if (setting == null) {
+            return ConfigSnapshot.defaultPath(configFile);
+        }
+        return setting.equals("none") ? null : Paths.get(setting);
+    }
+    
+    /**
+     * Compiles a config file into the snapshot that later runs load instead of the JSON
+     */
+    private static void compileConfigSnapshot(String filePath, String snapshotFile) throws IOException {
+        Path configFile = Paths.get(filePath);
+        Path snapshot = configSnapshotPath(configFile, snapshotFile != null ? snapshotFile : CONFIG_SNAPSHOT);
+        if (snapshot == null) {
+            throw new IllegalArgumentException("compile-config needs a snapshot file, not iso8583.configSnapshot=none");
+        }
+        byte[] content = Files.readAllBytes(configFile);
+        int fields = ConfigSnapshot.write(content, (ObjectNode) JsonMapper.INSTANCE.readTree(content), snapshot);
+        System.out.println("Compiled " + fields + " fields from " + configFile + " into " + snapshot + 
+                           " (" + Files.size(snapshot) + " bytes)");
+    }
+    
+    /**
+     * Creates the transport selected with -Diso8583.transport; the in-process parser needs the compiled config
+     */
+    private static ParserTransport createParserTransport() throws IOException {
+        batchingTransport = null;
+        switch (TRANSPORT) {
+            case "http":
+                ParserHttpClient client = new ParserHttpClient(PARSER_URL, PARSER_HTTP2, CONNECT_TIMEOUT, 
+                                                               REQUEST_TIMEOUT);
+                return BATCH_SIZE > 1 ? batching(client, client) : client;
+            case "inprocess":
+                if (BATCH_SIZE > 1) {
+                    throw new IllegalArgumentException("Batching applies to the http and loopback transports");
+                }
+                return InProcessParserTransport.load(IN_PROCESS_PARSER, fieldSpecs, MESSAGE_ENCODING);
+            case "loopback":
+                LoopbackParserTransport loopback = new LoopbackParserTransport(
+                        InProcessParserTransport.load(IN_PROCESS_PARSER, fieldSpecs, MESSAGE_ENCODING),
+                        CONCURRENCY, PARSER_HTTP2, CONNECT_TIMEOUT, REQUEST_TIMEOUT);
+                return BATCH_SIZE > 1 ? batching(loopback.getClient(), loopback) : loopback;
+            default:
+                throw new IllegalArgumentException("Unknown transport " + TRANSPORT + 
+                                                   ", expected http, inprocess or loopback");
+        }
+    }
+    
+    private static ParserTransport batching(ParserHttpClient client, ParserTransport underlying) {
+        batchingTransport = new BatchingParserTransport(client, underlying, BATCH_SIZE, BATCH_WINDOW_MS,
+                                                        BATCH_IN_FLIGHT);
+        return batchingTransport;
+    }
+    
+    private static void generateAndRunTests() throws IOException {
+        // Results are streamed to the report files as each field completes, so open them first
+        // A shard always writes JSONL, which is what the merge command reads
+        ResultSinks results;
+        try {
+            results = shard == null ? ResultSinks.open(RESULT_FORMATS, "iso8583_parser_test_results") :
+                      ResultSinks.open(RESULT_FORMATS.contains("jsonl") ? RESULT_FORMATS : RESULT_FORMATS + ",jsonl",
+                                       "iso8583_parser_test_results" + shard.fileSuffix());
+        } catch (IOException e) {
+            System.err.println("Error opening test result files: " + e.getMessage());
+            return;
+        }
+        
+        try (results) {
+            // First test: all valid data
+            Map<String, String> validData = generateAllValidData();
+            ParserResponseValidator.Expectations validExpectations = 
+                    ParserResponseValidator.Expectations.from(fieldSpecs, validData);
+            ResponseCache responseCache = RESPONSE_CACHE ? new ResponseCache() : null;
+            System.out.println("Running test with all valid data...");
+            SendOutcome baseline = sendAndClassifyMessage(validData, validExpectations, 
+                                                          METRICS.forCase("all", "valid"), responseCache);
+            boolean success = baseline == SendOutcome.ACCEPTED;
+            System.out.println("All valid data test result: " + (success ? "SUCCESS" : 
+                               baseline == SendOutcome.TRANSPORT_ERROR ? "FAILURE (no response from the parser)" : 
+                               baseline == SendOutcome.NOT_SENT ? "FAILURE (message could not be built)" : 
+                               "FAILURE"));
+            results.validBaseline(success);
+            results.flush();
+            
+            RunTotals totals = new RunTotals();
+            totals.resultStore = openResultStore(success);
+            String runFingerprint = totals.resultStore != null ? runFingerprint(validData) : null;
+            
+            if (shard != null) {
+                System.out.println("Running shard " + shard + " of the test cases");
+            }
+            
+            // Schedule field/category cases ahead so they run concurrently, but at most maxPendingCases of them:
+            // fields are reported (in config order) from the head of the queue before more are scheduled
+            int maxPendingCases = CONCURRENCY * 64;
+            ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+            try {
+                Deque<FieldTests> pendingFields = new ArrayDeque<>();
+                int pendingCases = 0;
+                long caseOrdinal = 0;
+                for (FieldSpec spec : fieldSpecs.all()) {
+                    while (pendingCases >= maxPendingCases) {
+                        FieldTests reported = pendingFields.poll();
+                        pendingCases -= reported.categories.size();
+                        reportField(reported, results, totals);
+                    }
+                    
+                    // The field's categories this process runs: all of them, or those dealt to its shard
+                    List<Integer> categoryIndexes = new ArrayList<>();
+                    for (int i = 0; i < TEST_CATEGORIES.size(); i++) {
+                        if (spec.getInvalidValue(i) != null && (shard == null || shard.owns(caseOrdinal++))) {
+                            categoryIndexes.add(i);
+                        }
+                    }
+                    if (shard != null && categoryIndexes.isEmpty()) {
+                        continue;
+                    }
+                    
+                    String fieldNumber = spec.getKey();
+                    FieldTests fieldTests = new FieldTests(fieldNumber, spec.getName());
+                    if (totals.resultStore != null) {
+                        fieldTests.fingerprint = ResultStore.fingerprint(
+                                runFingerprint, fieldNumber, fieldSpecs.getFieldJson(fieldNumber));
+                        // Stores written before subfields were reported as not sent hold failures for them
+                        if (IsoMessagePacker.packs(spec) && addStoredResults(fieldTests, spec, categoryIndexes, 
+                                             totals.resultStore.get(fieldTests.fingerprint))) {
+                            // Counted like scheduled cases, as reporting the field takes them off again
+                            pendingFields.add(fieldTests);
+                            pendingCases += fieldTests.categories.size();
+                            continue;
+                        }
+                    }
+                    
+                    for (int i : categoryIndexes) {
+                        String invalidValue = spec.getInvalidValue(i);
+                        String category = TEST_CATEGORIES.get(i).replace("_value", "");
+                        TestMetrics.CaseMetrics invalidMetrics = METRICS.forCase(fieldNumber, category);
+                        TestMetrics.CaseMetrics recoveryMetrics = METRICS.forCase(fieldNumber, category + "_recovery");
+                        Future<CategoryResult> result = executor.submit(
+                                () -> runCategoryTest(validData, validExpectations, fieldNumber, invalidValue,
+                                                      invalidMetrics, recoveryMetrics, responseCache));
+                        fieldTests.categories.add(new CategoryTest(i, spec.getInvalidDescription(i), result));
+                    }
+                    pendingFields.add(fieldTests);
+                    pendingCases += fieldTests.categories.size();
+                }
+                
+                while (!pendingFields.isEmpty()) {
+                    reportField(pendingFields.poll(), results, totals);
+                }
+            } finally {
+                executor.shutdown();
+                if (totals.resultStore != null) {
+                    totals.resultStore.close();
+                }
+            }
+            
+            if (totals.resultStore != null) {
+                System.out.println("\nReused stored results for " + totals.storedFields + " of " + 
+                                   fieldSpecs.all().size() + " fields (parser version " + PARSER_VERSION + ")");
+            }
+            printTransportSummary();
+            results.finish(totals.totalTests, totals.passedTests, totals.transportErrors, totals.notSent,
+                           responseCache != null ? responseCache.getRequests() : -1, 
+                           responseCache != null ? responseCache.getSavedSends() : 0);
+        }
+        System.out.println("\nTest results saved to " + String.join(", ", results.getFiles()));
+    }
+    
+    private static final String TRANSPORT_ERROR_RESULT = "TRANSPORT ERROR (no response from the parser)";
+    private static final String NOT_SENT_RESULT = "NOT SENT (value could not be packed into the message)";
+    
+    /**
+     * Waits for one field's scheduled cases and passes their results on to the sinks in TEST_CATEGORIES order
+     */
+    private static void reportField(FieldTests fieldTests, ResultSink results, RunTotals totals) throws IOException {
+        System.out.println("\nTesting field " + fieldTests.fieldNumber + ": " + fieldTests.name);
+        results.fieldStarted(fieldTests.fieldNumber, fieldTests.name);
+        
+        byte[] storable = new byte[fieldTests.categories.size() * 2];
+        boolean complete = true;
+        for (int c = 0; c < fieldTests.categories.size(); c++) {
+            CategoryTest categoryTest = fieldTests.categories.get(c);
+            CategoryResult result = awaitResult(categoryTest.result);
+            complete &= result != CategoryResult.NOT_RUN && hasResult(result.invalid) && hasResult(result.recovery);
+            storable[c * 2] = (byte) categoryTest.categoryIndex;
+            storable[c * 2 + 1] = (byte) ((result.rejected ? ResultStore.REJECTED : 0) | 
+                                          (result.recovered ? ResultStore.RECOVERED : 0));
+            
+            // For invalid tests, we expect the parser to reject the message
+            boolean testResult = result.rejected;
+            if (VERBOSE) {
+                System.out.println("  Testing " + categoryTest.category + ": " + categoryTest.description);
+                System.out.println("  Result: " + describe(result.invalid, testResult, 
+                                                           "PASSED (validation correctly failed)", 
+                                                           "FAILED (validation incorrectly passed)"));
+            }
+            
+            // The recovery test is a separate test
+            boolean recoveryResult = result.recovered;
+            if (VERBOSE) {
+                System.out.println("  Recovery test: " + describe(result.recovery, recoveryResult, "PASSED", "FAILED"));
+            }
+            
+            // A send without an answer, or a message that was never sent, is neither passed nor failed
+            ResultSink.CaseResult caseResult = new ResultSink.CaseResult(
+                    fieldTests.fieldNumber, fieldTests.name, categoryTest.category.replace("_value", ""),
+                    categoryTest.description, testResult, recoveryResult, 
+                    result.invalid == SendOutcome.TRANSPORT_ERROR, result.recovery == SendOutcome.TRANSPORT_ERROR,
+                    result.invalid == SendOutcome.NOT_SENT, result.recovery == SendOutcome.NOT_SENT);
+            totals.totalTests += caseResult.testsWithResult();
+            totals.transportErrors += caseResult.transportErrors();
+            totals.notSent += caseResult.notSentTests();
+            totals.passedTests += (testResult ? 1 : 0) + (recoveryResult ? 1 : 0);
+            results.caseFinished(caseResult);
+        }
+        results.fieldFinished();
+        
+        if (fieldTests.fromStore) {
+            totals.storedFields++;
+        } else if (totals.resultStore != null && complete) {
+            totals.resultStore.put(fieldTests.fingerprint, storable);
+        }
+        
+        // Write results out in batches so a crash loses at most the last batch
+        totals.unflushedCases += fieldTests.categories.size();
+        if (totals.unflushedCases >= RESULT_FLUSH_EVERY) {
+            results.flush();
+            totals.unflushedCases = 0;
+        }
+    }
+    
+    private static boolean hasResult(SendOutcome outcome) {
+        return outcome == SendOutcome.ACCEPTED || outcome == SendOutcome.REJECTED;
+    }
+    
+    private static String describe(SendOutcome outcome, boolean passed, String passedText, String failedText) {
+        return outcome == SendOutcome.TRANSPORT_ERROR ? TRANSPORT_ERROR_RESULT : 
+               outcome == SendOutcome.NOT_SENT ? NOT_SENT_RESULT : passed ? passedText : failedText;
+    }
+    
+    /**
+     * Drives the parser with an open-loop mix of valid and invalid messages at a target rate.
+     * Settings: -Diso8583.load.rate (msgs/sec), -Diso8583.load.durationSec or -Diso8583.load.messages,
+     * -Diso8583.load.invalidRatio (0.0 - 1.0) and -Diso8583.load.seed
+     */
+    private static void runLoadTest() {
+        double rate = Double.parseDouble(System.getProperty("iso8583.load.rate", "100"));
+        long durationSeconds = Long.getLong("iso8583.load.durationSec", 60);
+        long messageCount = Long.getLong("iso8583.load.messages", 0);
+        double invalidRatio = Double.parseDouble(System.getProperty("iso8583.load.invalidRatio", "0.5"));
+        long seed = Long.getLong("iso8583.load.seed", 1);
+        
+        // Build every message up front so the send loop only picks and sends
+        Map<String, String> validData = generateAllValidData();
+        String validMessage = buildISOMessage(validData);
+        List<String> invalidMessages = new ArrayList<>();
+        for (FieldSpec spec : fieldSpecs.all()) {
+            for (int i = 0; i < TEST_CATEGORIES.size(); i++) {
+                String invalidValue = spec.getInvalidValue(i);
+                if (invalidValue != null && IsoMessagePacker.packs(spec)) {
+                    try {
+                        invalidMessages.add(buildISOMessage(FieldDataOverlay.of(validData, spec.getKey(), invalidValue)));
+                    } catch (IllegalArgumentException e) {
+                        // Not representable in the configured encoding
+                        System.err.println("Skipping field " + spec.getKey() + " " + TEST_CATEGORIES.get(i) + 
+                                           ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        
+        System.out.println("Running load test at " + rate + " msgs/sec with " + invalidMessages.size() + 
+                           " invalid message variants...");
+        LoadGenerator generator = new LoadGenerator(rate, durationSeconds, messageCount, invalidRatio, seed);
+        LoadGenerator.Results results = generator.run(validMessage, invalidMessages, 
+                ISO8583TestGenerator::sendIsoMessageToParserAsync, REQUEST_TIMEOUT.toMillis());
+        String report = results.format(rate, invalidRatio);
+        System.out.println(report);
+        
+        // Write load test results next to the functional test results
+        try {
+            Files.writeString(Paths.get("iso8583_load_test_results.txt"), report);
+            System.out.println("Load test results saved to iso8583_load_test_results.txt");
+        } catch (IOException e) {
+            System.err.println("Error writing load test results to file: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Sends every message with iso8583.combinations.arity fields made invalid at once and expects the
+     * parser to reject each one. Cases are generated lazily and spread over iso8583.concurrency threads;
+     * only counts and the first iso8583.combinations.maxReported accepted cases are kept for the report.
+     * -Diso8583.combinations.limit caps the number of cases sent (0 sends all of them).
+     */
+    private static void runCombinationTests() throws InterruptedException, ExecutionException {
+        int arity = Integer.getInteger("iso8583.combinations.arity", 2);
+        long limit = Long.getLong("iso8583.combinations.limit", 0);
+        int maxReported = Integer.getInteger("iso8583.combinations.maxReported", 100);
+        
+        Map<String, String> validData = generateAllValidData();
+        ParserResponseValidator.Expectations validExpectations = 
+                ParserResponseValidator.Expectations.from(fieldSpecs, validData);
+        MutationGenerator generator = new MutationGenerator(fieldSpecs, validData, arity);
+        long planned = limit > 0 ? Math.min(limit, generator.size()) : generator.size();
+        System.out.println("Running " + planned + " of " + generator.size() + " cases with " + arity + 
+                           " invalid fields each...");
+        
+        TestMetrics.CaseMetrics metrics = METRICS.forCase("combined", arity + "_fields");
+        LongAdder rejectedCount = new LongAdder();
+        LongAdder acceptedCount = new LongAdder();
+        LongAdder transportErrorCount = new LongAdder();
+        LongAdder notSentCount = new LongAdder();
+        Queue<String> acceptedCases = new ConcurrentLinkedQueue<>();
+        AtomicInteger reportedCount = new AtomicInteger();
+        
+        Stream<MutationGenerator.Mutation> cases = generator.stream();
+        if (limit > 0) {
+            cases = cases.limit(limit);
+        }
+        Stream<MutationGenerator.Mutation> parallelCases = cases.parallel();
+        ForkJoinPool pool = new ForkJoinPool(CONCURRENCY);
+        try {
+            pool.submit(() -> parallelCases.forEach(mutation -> {
+                // Every combination is a different message, so none of them goes through the response cache
+                SendOutcome outcome = sendAndClassifyMessage(
+                        mutation.fieldData(), validExpectations.with(mutation.getKeys(), mutation.getValues()),
+                        metrics, null);
+                if (outcome == SendOutcome.TRANSPORT_ERROR) {
+                    transportErrorCount.increment();
+                    return;
+                }
+                if (outcome == SendOutcome.NOT_SENT) {
+                    notSentCount.increment();
+                    return;
+                }
+                boolean rejected = outcome == SendOutcome.REJECTED;
+                metrics.recordResult(rejected);
+                if (rejected) {
+                    rejectedCount.increment();
+                } else {
+                    acceptedCount.increment();
+                    if (reportedCount.getAndIncrement() < maxReported) {
+                        acceptedCases.add(mutation.describe());
+                    }
+                    if (VERBOSE) {
+                        System.out.println("  FAILED (validation incorrectly passed): " + mutation.describe());
+                    }
+                }
+            })).get();
+        } finally {
+            pool.shutdown();
+        }
+        
+        long total = rejectedCount.sum() + acceptedCount.sum();
+        StringBuilder testResults = new StringBuilder();
+        testResults.append("ISO8583 Parser Combination Test Results\n");
+        testResults.append("=======================================\n\n");
+        testResults.append("Invalid Fields Per Message: ").append(arity).append("\n");
+        testResults.append("Cases Available: ").append(generator.size()).append("\n\n");
+        if (acceptedCount.sum() > 0) {
+            testResults.append("Accepted Cases");
+            if (acceptedCount.sum() > acceptedCases.size()) {
+                testResults.append(" (first ").append(acceptedCases.size()).append(")");
+            }
+            testResults.append("\n");
+            for (String description : acceptedCases) {
+                testResults.append("  - ").append(description).append(": FAILED\n");
+            }
+            testResults.append("\n");
+        }
+        testResults.append("Overall Summary\n");
+        testResults.append("--------------\n");
+        testResults.append("Total Tests: ").append(total).append("\n");
+        testResults.append("Passed Tests: ").append(rejectedCount.sum()).append("\n");
+        testResults.append("Pass Rate: ")
+                  .append(String.format("%.1f", total > 0 ? rejectedCount.sum() * 100.0 / total : 0)).append("%\n");
+        if (transportErrorCount.sum() > 0) {
+            testResults.append("Transport Errors: ").append(transportErrorCount.sum())
+                      .append(" (no response from the parser, not counted above)\n");
+        }
+        if (notSentCount.sum() > 0) {
+            testResults.append("Not Sent: ").append(notSentCount.sum())
+                      .append(" (value could not be packed into the message, not counted above)\n");
+        }
+        System.out.println(testResults);
+        printTransportSummary();
+        
+        try {
+            Files.writeString(Paths.get("iso8583_combination_test_results.txt"), testResults.toString());
+            System.out.println("Combination test results saved to iso8583_combination_test_results.txt");
+        } catch (IOException e) {
+            System.err.println("Error writing combination test results to file: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Re-runs the capture in -Diso8583.replay.file and reports every outcome that differs from the recorded one.
+     * -Diso8583.replay.speed: "original" sends at the recorded pace, a number at that multiple of it, "max" as fast
+     * as iso8583.concurrency threads allow, and "offline" re-validates the recorded responses without sending.
+     */
+    private static void runReplay() throws IOException, InterruptedException {
+        String file = System.getProperty("iso8583.replay.file", "iso8583_capture.bin");
+        String speedSetting = System.getProperty("iso8583.replay.speed", "offline");
+        int maxReported = Integer.getInteger("iso8583.replay.maxReported", 100);
+        boolean offline = speedSetting.equals("offline");
+        double speed = offline || speedSetting.equals("max") ? 0 : 
+                       speedSetting.equals("original") ? 1 : Double.parseDouble(speedSetting);
+        
+        TrafficReplay.Replayer replayer = offline ? 
+                record -> record.response == null ? SendOutcome.TRANSPORT_ERROR : 
+                          classifyResponse(record.response, 
+                                           ParserResponseValidator.Expectations.from(fieldSpecs, record.fieldData)) :
+                // The recorded message is resent as captured, every time, as replay measures the parser's
+                // answers; the field data only gives the expectations
+                record -> sendAndClassifyIsoMessage(record.isoMessage, record.fieldData, 
+                                                    ParserResponseValidator.Expectations.from(fieldSpecs, 
+                                                                                              record.fieldData),
+                                                    METRICS.forCase(record.field, record.category), null);
+        String pace = offline ? "offline, re-validating the recorded responses" : 
+                      speed == 0 ? "at maximum speed" : speed == 1 ? "at the original speed" : 
+                      "at " + speedSetting + "x the original speed";
+        System.out.println("Replaying " + file + " " + pace + "...");
+        
+        TrafficReplay.Results results;
+        long captureStart;
+        try (TrafficLog.Reader log = new TrafficLog.Reader(Paths.get(file))) {
+            captureStart = log.getCaptureStartMillis();
+            results = new TrafficReplay(speed, offline ? 1 : CONCURRENCY, maxReported).run(log, replayer);
+        }
+        
+        long records = results.records.sum();
+        StringBuilder report = new StringBuilder();
+        report.append("ISO8583 Parser Replay Results\n");
+        report.append("=============================\n\n");
+        report.append("Capture: ").append(file).append(" (started ").append(Instant.ofEpochMilli(captureStart))
+              .append(")\n");
+        report.append("Replayed: ").append(pace).append("\n\n");
+        if (results.changed.sum() > 0) {
+            report.append("Changed Outcomes");
+            if (results.changed.sum() > results.changes.size()) {
+                report.append(" (first ").append(results.changes.size()).append(")");
+            }
+            report.append("\n");
+            for (String change : results.changes) {
+                report.append("  - ").append(change).append("\n");
+            }
+            report.append("\n");
+        }
+        report.append("Overall Summary\n");
+        report.append("--------------\n");
+        report.append("Messages: ").append(records).append("\n");
+        report.append("Same Outcome: ").append(results.same.sum()).append("\n");
+        report.append("Changed Outcome: ").append(results.changed.sum()).append("\n");
+        if (results.transportErrors.sum() > 0) {
+            report.append("Transport Errors: ").append(results.transportErrors.sum())
+                  .append(" (no response when recorded or replayed, not compared)\n");
+        }
+        if (records > 0) {
+            report.append("Mean Recorded Send Time: ")
+                  .append(String.format("%.3f", results.recordedNanos.sum() / 1e6 / records)).append(" ms\n");
+            report.append("Mean Replay Time: ")
+                  .append(String.format("%.3f", results.replayedNanos.sum() / 1e6 / records)).append(" ms\n");
+        }
+        report.append("Duration: ").append(String.format("%.3f", results.elapsedNanos / 1e9)).append(" s\n");
+        System.out.println(report);
+        if (!offline) {
+            printTransportSummary();
+        }
+        
+        try {
+            Files.writeString(Paths.get("iso8583_replay_results.txt"), report.toString());
+            System.out.println("Replay results saved to iso8583_replay_results.txt");
+        } catch (IOException e) {
+            System.err.println("Error writing replay results to file: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Fuzzes the parser with mutated copies of the valid message (see MessageFuzzer) and shrinks each kind of
+     * failure to a minimal reproducer. Runs -Diso8583.fuzz.cases cases, or for -Diso8583.fuzz.durationSec if set,
+     * on -Diso8583.fuzz.threads threads (default: one per core) from -Diso8583.fuzz.seed.
+     * With -Diso8583.transport=inprocess the parser library is called directly on the mutated bytes.
+     */
+    private static void runFuzzTest() throws InterruptedException {
+        long cases = Long.getLong("iso8583.fuzz.cases", 1_000_000);
+        long durationSeconds = Long.getLong("iso8583.fuzz.durationSec", 0);
+        long seed = Long.getLong("iso8583.fuzz.seed", 1);
+        int threads = Math.max(1, Integer.getInteger("iso8583.fuzz.threads", Runtime.getRuntime().availableProcessors()));
+        int maxReported = Integer.getInteger("iso8583.fuzz.maxReported", 20);
+        
+        // The in-process and loopback transports run the parser from -Diso8583.inProcessParser, by default the
+        // built-in reference parser, which implements the very field rules the fuzzer judges by
+        IsoParser inProcessParser = TRANSPORT.equals("http") ? null : 
+                InProcessParserTransport.load(IN_PROCESS_PARSER, fieldSpecs, MESSAGE_ENCODING).getParser();
+        if (inProcessParser instanceof ReferenceIsoParser) {
+            System.err.println("Not fuzzing the built-in reference parser, it checks the same field rules as the " +
+                               "fuzzer; set -Diso8583.inProcessParser to a parser library or use the http transport");
+            return;
+        }
+        
+        Map<String, String> validData = generateAllValidData();
+        ByteBuffer packed = messagePacker.pack(validData);
+        byte[] baseline = new byte[packed.remaining()];
+        packed.get(baseline);
+        MessageFuzzer.Target target = TRANSPORT.equals("inprocess") ? 
+                MessageFuzzer.inProcessTarget(inProcessParser) :
+                MessageFuzzer.transportTarget(parserTransport, MESSAGE_ENCODING);
+        if (target.test(baseline, baseline.length) != MessageFuzzer.Verdict.ACCEPTED) {
+            System.err.println("The parser does not accept the valid message, which every fuzz case starts from");
+            return;
+        }
+        MessageFuzzer fuzzer = new MessageFuzzer(fieldSpecs, MESSAGE_ENCODING, baseline, messagePacker.layout(validData),
+                                                 target, maxReported);
+        System.out.println("Fuzzing with " + (durationSeconds > 0 ? durationSeconds + " s" : cases + " cases") + 
+                           " on " + threads + " threads, seed " + seed + "...");
+        
+        MessageFuzzer.Results results = fuzzer.run(seed, threads, durationSeconds > 0 ? Long.MAX_VALUE : cases,
+                                                   durationSeconds > 0 ? durationSeconds * 1_000_000_000L : Long.MAX_VALUE);
+        String report = results.format(seed, threads);
+        System.out.println(report);
+        if (!TRANSPORT.equals("inprocess")) {
+            printTransportSummary();
+        }
+        
+        try {
+            Files.writeString(Paths.get("iso8583_fuzz_results.txt"), report);
+            System.out.println("Fuzz results saved to iso8583_fuzz_results.txt");
+        } catch (IOException e) {
+            System.err.println("Error writing fuzz results to file: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Runs a single invalid scenario for one field followed by its recovery send
+     */
+    private static CategoryResult runCategoryTest(Map<String, String> validData, 
+                                                  ParserResponseValidator.Expectations validExpectations,
+                                                  String fieldNumber, String invalidValue,
+                                                  TestMetrics.CaseMetrics invalidMetrics,
+                                                  TestMetrics.CaseMetrics recoveryMetrics,
+                                                  ResponseCache responseCache) {
+        if (!IsoMessagePacker.packs(fieldSpecs.byKey(fieldNumber))) {
+            // The invalid value would be dropped by the packer and the all-valid message sent in its place
+            if (VERBOSE) {
+                System.out.println("  Not sending field " + fieldNumber + ": subfields are not packed separately");
+            }
+            return new CategoryResult(SendOutcome.NOT_SENT, SendOutcome.NOT_SENT);
+        }
+        // View of the valid data with this field replaced by invalid data
+        Map<String, String> testData = FieldDataOverlay.of(validData, fieldNumber, invalidValue);
+        SendOutcome invalid = sendAndClassifyMessage(testData, validExpectations.with(fieldNumber, invalidValue),
+                                                     invalidMetrics, responseCache);
+        if (hasResult(invalid)) {
+            invalidMetrics.recordResult(invalid == SendOutcome.REJECTED);
+        }
+        
+        // Verify that switching back to valid value passes; with the field restored (or dropped again for
+        // computed bitmaps) the recovery message is the all-valid one, so unless forced it comes from the cache
+        SendOutcome recovery = sendAndClassifyMessage(validData, validExpectations, recoveryMetrics,
+                                                      FORCE_RECOVERY_SENDS ? null : responseCache);
+        if (hasResult(recovery)) {
+            recoveryMetrics.recordResult(recovery == SendOutcome.ACCEPTED);
+        }
+        
+        return new CategoryResult(invalid, recovery);
+    }
+    
+    private static void printTransportSummary() {
+        String summary = parserTransport.summary();
+        if (summary != null) {
+            System.out.println(summary);
+        }
+        if (batchingTransport != null) {
+            System.out.println(batchingTransport.summary());
+        }
+    }
+    
+    private static CategoryResult awaitResult(Future<CategoryResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted while waiting for test result");
+        } catch (ExecutionException e) {
+            System.err.println("Error running test case: " + e.getCause().getMessage());
+        }
+        return CategoryResult.NOT_RUN;
+    }
+    
+    /**
+     * Opens the result store if -Diso8583.parserVersion is set. It is not used when the valid baseline
+     * failed, as a parser that is down would otherwise leave failures behind for later runs.
+     */
+    private static ResultStore openResultStore(boolean baselinePassed) {
+        if (PARSER_VERSION == null) {
+            return null;
+        }
+        if (!baselinePassed) {
+            System.out.println("Valid data test failed, not using the result store for this run");
+            return null;
+        }
+        try {
+            ResultStore store = ResultStore.open(Paths.get(RESULT_STORE));
+            System.out.println("Result store " + RESULT_STORE + " holds " + store.size() + " field results");
+            return store;
+        } catch (IOException e) {
+            System.err.println("Error opening result store, running all fields: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Everything outside a field's own config that its results depend on: the parser version, the shard and
+     * transport, the wire encoding, the test categories and the valid baseline, both as data and as the packed message
+     */
+    private static String runFingerprint(Map<String, String> validData) {
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append(PARSER_VERSION).append('\n')
+                   .append(shard).append('\n')
+                   .append(TRANSPORT).append('/').append(IN_PROCESS_PARSER).append('\n')
+                   .append(MESSAGE_ENCODING).append('\n')
+                   .append(TEST_CATEGORIES).append('\n');
+        for (FieldSpec spec : fieldSpecs.all()) {
+            fingerprint.append(spec.getKey()).append('=').append(validData.get(spec.getKey())).append('\n');
+        }
+        return fingerprint.append(buildISOMessage(validData)).toString();
+    }
+    
+    /**
+     * Fills in a field's cases from its stored results
+     * @param categoryIndexes The categories to run for the field
+     * @return False if there are no stored results covering exactly those categories
+     */
+    private static boolean addStoredResults(FieldTests fieldTests, FieldSpec spec, List<Integer> categoryIndexes,
+                                            byte[] stored) {
+        if (stored == null || stored.length != categoryIndexes.size() * 2) {
+            return false;
+        }
+        for (int c = 0; c < stored.length; c += 2) {
+            int i = stored[c];
+            if (i != categoryIndexes.get(c / 2)) {
+                fieldTests.categories.clear();
+                return false;
+            }
+            CategoryResult result = new CategoryResult(
+                    (stored[c + 1] & ResultStore.REJECTED) != 0 ? SendOutcome.REJECTED : SendOutcome.ACCEPTED,
+                    (stored[c + 1] & ResultStore.RECOVERED) != 0 ? SendOutcome.ACCEPTED : SendOutcome.REJECTED);
+            fieldTests.categories.add(new CategoryTest(i, spec.getInvalidDescription(i), 
+                                                       CompletableFuture.completedFuture(result)));
+        }
+        fieldTests.fromStore = true;
+        return true;
+    }
+    
+    /**
+     * The scheduled invalid scenarios of one field, in TEST_CATEGORIES order
+     */
+    private static final class FieldTests {
+        final String fieldNumber;
+        final String name;
+        final List<CategoryTest> categories = new ArrayList<>();
+        // Key of the field's results in the result store, and whether they were taken from it
+        long fingerprint;
+        boolean fromStore;
+        
+        FieldTests(String fieldNumber, String name) {
+            this.fieldNumber = fieldNumber;
+            this.name = name;
+        }
+    }
+    
+    private static final class CategoryTest {
+        final int categoryIndex;
+        final String category;
+        final String description;
+        final Future<CategoryResult> result;
+        
+        CategoryTest(int categoryIndex, String description, Future<CategoryResult> result) {
+            this.categoryIndex = categoryIndex;
+            this.category = TEST_CATEGORIES.get(categoryIndex);
+            this.description = description;
+            this.result = result;
+        }
+    }
+    
+    private static final class RunTotals {
+        int totalTests;
+        int passedTests;
+        int transportErrors;
+        int notSent;
+        int unflushedCases;
+        ResultStore resultStore;
+        int storedFields;
+    }
+    
+    private static final class CategoryResult {
+        // Stands in for a case that failed to run; counted as failed and never stored
+        static final CategoryResult NOT_RUN = new CategoryResult(SendOutcome.ACCEPTED, SendOutcome.REJECTED);
+        
+        // What became of the invalid and the recovery send; a transport error or a message that was not sent
+        // leaves that test without a result, and the case is then never stored
+        final SendOutcome invalid;
+        final SendOutcome recovery;
+        final boolean rejected;
+        final boolean recovered;
+        
+        CategoryResult(SendOutcome invalid, SendOutcome recovery) {
+            this.invalid = invalid;
+            this.recovery = recovery;
+            this.rejected = invalid == SendOutcome.REJECTED;
+            this.recovered = recovery == SendOutcome.ACCEPTED;
+        }
+    }
+    
+    static Map<String, String> generateAllValidData() {
+        Map<String, String> validData = new java.util.HashMap<>();
+        
+        for (FieldSpec spec : fieldSpecs.all()) {
+            // Raw value for variable length fields, formatted value otherwise; bitmaps are computed by the packer
+            String baselineValue = spec.getBaselineValue();
+            if (baselineValue != null) {
+                validData.put(spec.getKey(), baselineValue);
+            }
+        }
+        
+        return validData;
+    }
+    
+    /**
+     * Simulate sending an ISO8583 message with the given field data and validating the response
+     * In a real implementation, this would call the actual parser/validator
+     */
+    static boolean sendAndValidateMessage(Map<String, String> fieldData) {
+        return sendAndValidateMessage(fieldData, ParserResponseValidator.Expectations.from(fieldSpecs, fieldData));
+    }
+    
+    /**
+     * Sends an ISO8583 message with the given field data and validates the response against
+     * expectations prepared ahead of time for this test case
+     */
+    static boolean sendAndValidateMessage(Map<String, String> fieldData, 
+                                          ParserResponseValidator.Expectations expected) {
+        return sendAndValidateMessage(fieldData, expected, TestMetrics.DISCARD, null);
+    }
+    
+    /**
+     * Sends and validates a message, timing each stage into the given field/category metrics
+     * @param responseCache Cache to answer identical messages from, or null to always send
+     */
+    static boolean sendAndValidateMessage(Map<String, String> fieldData, 
+                                          ParserResponseValidator.Expectations expected,
+                                          TestMetrics.CaseMetrics metrics, ResponseCache responseCache) {
+        return sendAndClassifyMessage(fieldData, expected, metrics, responseCache) == SendOutcome.ACCEPTED;
+    }
+    
+    /**
+     * What became of a sent message
+     */
+    enum SendOutcome {
+        // The parser accepted the message and returned the expected fields
+        ACCEPTED,
+        // The parser rejected the message or returned other fields
+        REJECTED,
+        // The message got no answer from the parser, so it tells nothing about the parser's validation
+        TRANSPORT_ERROR,
+        // The field data cannot be packed in the wire encoding (e.g. a letter in a BCD numeric field), so
+        // nothing was sent and the parser's validation was not tested either
+        NOT_SENT
+    }
+    
+    /**
+     * Like sendAndValidateMessage, but tells a rejection apart from a send that got no answer
+     */
+    static SendOutcome sendAndClassifyMessage(Map<String, String> fieldData, 
+                                              ParserResponseValidator.Expectations expected,
+                                              TestMetrics.CaseMetrics metrics, ResponseCache responseCache) {
+        // Build the ISO message
+        long start = System.nanoTime();
+        String isoMessage;
+        try {
+            isoMessage = buildISOMessage(fieldData);
+        } catch (IllegalArgumentException e) {
+            metrics.recordError();
+            if (VERBOSE) {
+                System.err.println("Message not sent, it cannot be built: " + e.getMessage());
+            }
+            return SendOutcome.NOT_SENT;
+        } catch (RuntimeException e) {
+            metrics.recordError();
+            if (VERBOSE) {
+                System.err.println("Error processing message: " + e.getMessage());
+            }
+            return SendOutcome.REJECTED;
+        }
+        metrics.build.record(System.nanoTime() - start);
+        return sendAndClassifyIsoMessage(isoMessage, fieldData, expected, metrics, responseCache);
+    }
+    
+    /**
+     * Sends an already built message and classifies the response
+     * @param fieldData The field data the message was built from, for the traffic log
+     */
+    static SendOutcome sendAndClassifyIsoMessage(String isoMessage, Map<String, String> fieldData, 
+                                                 ParserResponseValidator.Expectations expected,
+                                                 TestMetrics.CaseMetrics metrics, ResponseCache responseCache) {
+        try {
+            // Send the ISO message to the parser service
+            long built = System.nanoTime();
+            String responseJson;
+            // Only messages that actually went to the parser are captured, not answers taken from the cache
+            boolean[] sent = {responseCache == null};
+            try {
+                responseJson = responseCache != null ? 
+                        responseCache.send(isoMessage, message -> {
+                            sent[0] = true;
+                            return sendIsoMessageToParser(message);
+                        }) : 
+                        sendIsoMessageToParser(isoMessage);
+            } catch (TransportException e) {
+                if (trafficLog != null && sent[0]) {
+                    trafficLog.append(built, System.nanoTime() - built, SendOutcome.TRANSPORT_ERROR, 
+                                      metrics.getField(), metrics.getCategory(), fieldData, isoMessage, null);
+                }
+                throw e;
+            }
+            long received = System.nanoTime();
+            metrics.send.record(received - built);
+            
+            SendOutcome outcome = classifyResponse(responseJson, expected);
+            metrics.validate.record(System.nanoTime() - received);
+            if (trafficLog != null && sent[0]) {
+                trafficLog.append(built, received - built, outcome, metrics.getField(), metrics.getCategory(), 
+                                  fieldData, isoMessage, responseJson);
+            }
+            return outcome;
+            
+        } catch (TransportException e) {
+            metrics.recordTransportError();
+            if (VERBOSE) {
+                System.err.println("Transport error: " + e.getMessage());
+            }
+            return SendOutcome.TRANSPORT_ERROR;
+        } catch (Exception e) {
+            metrics.recordError();
+            if (VERBOSE) {
+                System.err.println("Error processing message: " + e.getMessage());
+            }
+            return SendOutcome.REJECTED;
+        }
+    }
+    
+    /**
+     * Checks a parser response to a message against what was expected of it
+     */
+    static SendOutcome classifyResponse(String responseJson, ParserResponseValidator.Expectations expected) {
+        // Check if the response contains an error
+        if (responseJson.contains("ISOParserException") || responseJson.contains("Error")) {
+            if (VERBOSE) {
+                System.err.println("Parser rejected the message: " + responseJson);
+            }
+            return SendOutcome.REJECTED;
+        }
+        
+        // Parse the response and validate the parsed fields
+        return validateParserResponse(responseJson, expected) ? SendOutcome.ACCEPTED : SendOutcome.REJECTED;
+    }
+    
+    /**
+     * Sends an ISO8583 message to the parser through the configured transport
+     * @param isoMessage The ISO8583 message to send
+     * @return The JSON response from the parser
+     */
+    static String sendIsoMessageToParser(String isoMessage) throws IOException {
+        return parserTransport.send(isoMessage);
+    }
+    
+    /**
+     * Sends an ISO8583 message to the parser service without blocking
+     * @param isoMessage The ISO8583 message to send
+     * @return A future completed with the JSON response from the parser
+     */
+    private static CompletableFuture<String> sendIsoMessageToParserAsync(String isoMessage) {
+        return parserTransport.sendAsync(isoMessage);
+    }
+    
+    /**
+     * Validates the parser response against the original field data
+     * @param responseJson The JSON response from the parser
+     * @param originalFieldData The original field data that was sent
+     * @return True if validation passes, false otherwise
+     */
+    static boolean validateParserResponse(String responseJson, Map<String, String> originalFieldData) {
+        return validateParserResponse(responseJson, 
+                                      ParserResponseValidator.Expectations.from(fieldSpecs, originalFieldData));
+    }
+    
+    /**
+     * Validates the parser response by streaming over it, without building a JSON tree
+     * @param responseJson The JSON response from the parser
+     * @param expected The expected values for the message that was sent
+     * @return True if validation passes, false otherwise
+     */
+    static boolean validateParserResponse(String responseJson, ParserResponseValidator.Expectations expected) {
+        try {
+            return ParserResponseValidator.validate(responseJson, expected);
+        } catch (Exception e) {
+            if (VERBOSE) {
+                System.err.println("Error validating parser response: " + e.getMessage());
+            }
+            return false;
+        }
+    }
+    
+    static String buildISOMessage(Map<String, String> fieldData) {
+        // MTI, computed bitmaps and fields in ascending order, packed into a reusable per-thread buffer
+        return messagePacker.toWireString(messagePacker.pack(fieldData));
+    }
+    
+    static boolean validateISOMessage(String isoMessage, Map<String, String> fieldData) {
+        // The same checks the reference in-process parser (-Diso8583.transport=inprocess) applies to
+        // every message it unpacks: invalid test values fail, valid values are checked against the format rules
+        return ReferenceIsoParser.firstInvalidField(fieldSpecs, fieldData) == null;
+    }
+    
+    /**
+     * Helper method to get a specific field property by field name/path
+     */
+    public static String getValueFromJsonPath(String jsonPath) {
+        String[] pathParts = jsonPath.split("\\.");
+        if (pathParts.length < 1) return null;
+        
+        String fieldNumber = pathParts[0];
+        String fieldJson = fieldSpecs.getFieldJson(fieldNumber);
+        if (fieldJson == null) return null;
+        JsonNode node;
+        try {
+            node = JsonMapper.INSTANCE.readTree(fieldJson);
+        } catch (IOException e) {
+            return null;
+        }
+        
+        // Navigate through nested path
+        for (int i = 1; i < pathParts.length && node != null; i++) {
+            node = node.get(pathParts[i]);
+        }
+        
+        return (node != null) ? node.asText() : null;
+    }
+    
+    /**
+     * Helper method to get validExample by field name
+     */
+    public static String getValidExampleFromJsonPath(String jsonPath) {
+        return fieldSpecs.validExampleByName(jsonPath);
+    }
+}
\ No newline at end of file
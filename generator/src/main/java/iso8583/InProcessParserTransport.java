@@ -0,0 +1,120 @@
+package iso8583;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Calls a parser library directly instead of going over the network.
+ * The wire message is turned back into bytes in a reusable per-thread buffer and handed to an
+ * {@link IsoParser}; the result is rendered in the parser service's response format, so the response
+ * checks and validation are the same as for HTTP. A rejected message is answered with an
+ * ISOParserException response, as the service does.
+ */
+public class InProcessParserTransport implements ParserTransport {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final IsoParser parser;
+    private final IsoMessagePacker.Encoding encoding;
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(4096));
+
+    public InProcessParserTransport(IsoParser parser, IsoMessagePacker.Encoding encoding) {
+        this.parser = parser;
+        this.encoding = encoding;
+    }
+
+    /**
+     * Creates a transport for a parser found through {@link ServiceLoader}
+     * @param providerName The provider to use, or null to prefer any library over the built-in reference parser
+     * @param fieldSpecs The compiled field config
+     * @param encoding The wire encoding messages are packed with
+     */
+    public static InProcessParserTransport load(String providerName, FieldSpecs fieldSpecs,
+                                                IsoMessagePacker.Encoding encoding) {
+        IsoParser.Provider selected = null;
+        List<String> available = new ArrayList<>();
+        for (IsoParser.Provider provider : ServiceLoader.load(IsoParser.Provider.class)) {
+            available.add(provider.name());
+            if (providerName != null ? provider.name().equals(providerName) :
+                selected == null || selected.name().equals(ReferenceIsoParser.Provider.NAME)) {
+                selected = provider;
+            }
+        }
+        if (selected == null) {
+            throw new IllegalArgumentException("No in-process parser named " + providerName +
+                                               ", available: " + available);
+        }
+        return new InProcessParserTransport(selected.create(fieldSpecs, encoding), encoding);
+    }
+
+    /**
+     * @return The parser library this transport calls
+     */
+    public IsoParser getParser() {
+        return parser;
+    }
+
+    @Override
+    public String send(String isoMessage) throws IOException {
+        Map<String, String> fields;
+        try {
+            fields = parser.parse(toBytes(isoMessage));
+        } catch (Exception e) {
+            return rejection(e);
+        }
+
+        StringWriter response = new StringWriter(fields.size() * 48);
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(response)) {
+            json.writeStartArray();
+            for (Map.Entry<String, String> field : fields.entrySet()) {
+                json.writeStartObject();
+                json.writeStringField("dataElementId", field.getKey());
+                json.writeStringField("value", field.getValue());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+        return response.toString();
+    }
+
+    private ByteBuffer toBytes(String isoMessage) {
+        int length = encoding == IsoMessagePacker.Encoding.BCD ? isoMessage.length() / 2 : isoMessage.length();
+        ByteBuffer buffer = buffers.get();
+        if (buffer.capacity() < length) {
+            buffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, length));
+            buffers.set(buffer);
+        }
+        buffer.clear();
+        if (encoding == IsoMessagePacker.Encoding.BCD) {
+            for (int i = 0; i + 1 < isoMessage.length(); i += 2) {
+                buffer.put((byte) (Character.digit(isoMessage.charAt(i), 16) << 4 |
+                                   Character.digit(isoMessage.charAt(i + 1), 16)));
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) isoMessage.charAt(i));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static String rejection(Exception e) throws IOException {
+        StringWriter response = new StringWriter();
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(response)) {
+            json.writeStartObject();
+            json.writeStringField("exception", "ISOParserException");
+            json.writeStringField("message", String.valueOf(e.getMessage()));
+            json.writeEndObject();
+        }
+        return response.toString();
+    }
+}
@@ -0,0 +1,344 @@
+package iso8583;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Packs field data into an ISO8583 message: MTI, primary (and if needed secondary) bitmap,
+ * then data elements 2-128 in ascending order, each encoded according to the field config's
+ * format, length, max_length and type.
+ *
+ * Messages are written into a per-thread ByteBuffer that is reused between calls, so the
+ * buffer returned by {@link #pack(Map)} is only valid until the next pack on the same thread.
+ */
+public class IsoMessagePacker {
+
+    /**
+     * ASCII: every element as ASCII text, bitmaps as 16 hex characters, LL/LLL prefixes as digits.
+     * BCD: numeric elements and LL/LLL prefixes as packed BCD, binary elements and bitmaps as
+     * raw bytes, alphanumeric elements as ASCII.
+     */
+    public enum Encoding { ASCII, BCD }
+
+    private static final int MAX_FIELD = FieldSpecs.MAX_FIELD_NUMBER;
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final String[] FIELD_KEYS = new String[MAX_FIELD + 1];
+    static {
+        for (int i = 0; i <= MAX_FIELD; i++) {
+            FIELD_KEYS[i] = Integer.toString(i);
+        }
+    }
+
+    private final Encoding encoding;
+    // Indexed by field number; null where the config has no definition
+    private final FieldSpec[] specs = new FieldSpec[MAX_FIELD + 1];
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(4096));
+
+    public IsoMessagePacker(FieldSpecs fieldSpecs, Encoding encoding) {
+        this.encoding = encoding;
+        for (int fieldNumber = 2; fieldNumber <= MAX_FIELD; fieldNumber++) {
+            specs[fieldNumber] = fieldSpecs.byNumber(fieldNumber);
+        }
+    }
+
+    /**
+     * Packs the given field data. Keys are field numbers ("2".."128") plus "MTI"; subfield keys
+     * such as "63.1" are not packed separately. Bitmaps are computed from the fields present unless
+     * "PrimaryBitmap"/"SecondaryBitmap" are supplied, in which case the supplied hex value is written
+     * as-is (used to test invalid bitmaps).
+     * @return The reusable buffer, flipped and ready to read
+     */
+    public ByteBuffer pack(Map<String, String> fieldData) {
+        return pack(fieldData, null);
+    }
+
+    /**
+     * @return Whether pack writes a value set under this element's key; subfields such as "63.1" have
+     *         no wire layout in the field config, so a value set on one never reaches the parser
+     */
+    public static boolean packs(FieldSpec spec) {
+        return spec.getFieldNumber() >= 0 || spec.getKey().equals("PrimaryBitmap") ||
+               spec.getKey().equals("SecondaryBitmap");
+    }
+
+    /**
+     * Packs the given field data and records where each element starts and ends
+     * @return Byte offsets of every element in a message packed from the same field data
+     */
+    public Layout layout(Map<String, String> fieldData) {
+        Layout layout = new Layout();
+        pack(fieldData, layout);
+        return layout;
+    }
+
+    private ByteBuffer pack(Map<String, String> fieldData, Layout layout) {
+        String mti = fieldData.get("MTI");
+        if (mti == null) {
+            throw new IllegalArgumentException("MTI is required to pack an ISO8583 message");
+        }
+
+        long primary = 0;
+        long secondary = 0;
+        for (int fieldNumber = 2; fieldNumber <= MAX_FIELD; fieldNumber++) {
+            if (specs[fieldNumber] != null && fieldData.get(FIELD_KEYS[fieldNumber]) != null) {
+                if (fieldNumber <= 64) {
+                    primary |= 1L << (64 - fieldNumber);
+                } else {
+                    secondary |= 1L << (128 - fieldNumber);
+                }
+            }
+        }
+        if (secondary != 0) {
+            // Bit 1 of the primary bitmap flags the presence of the secondary bitmap
+            primary |= 1L << 63;
+        }
+
+        ByteBuffer buffer = buffers.get();
+        buffer.clear();
+        buffer = writeElement(buffer, mti, FieldSpec.Type.NUMERIC);
+        if (layout != null) {
+            layout.add("MTI", -1, 0, buffer.position(), mti.length());
+        }
+        int start = buffer.position();
+        buffer = writeBitmap(buffer, primary, fieldData.get("PrimaryBitmap"));
+        if (layout != null) {
+            layout.add("PrimaryBitmap", -1, start, buffer.position(), 64);
+        }
+        if (secondary != 0) {
+            start = buffer.position();
+            buffer = writeBitmap(buffer, secondary, fieldData.get("SecondaryBitmap"));
+            if (layout != null) {
+                layout.add("SecondaryBitmap", -1, start, buffer.position(), 64);
+            }
+        }
+
+        for (int fieldNumber = 2; fieldNumber <= MAX_FIELD; fieldNumber++) {
+            FieldSpec spec = specs[fieldNumber];
+            String value = spec != null ? fieldData.get(FIELD_KEYS[fieldNumber]) : null;
+            if (value == null) {
+                continue;
+            }
+            int prefixStart = buffer.position();
+            if (spec.isVariable()) {
+                buffer = writeLengthPrefix(buffer, fieldNumber, value.length(), spec.getLengthPrefixDigits());
+            }
+            // Fixed fields are written as supplied so that wrong-length test values reach the parser
+            start = buffer.position();
+            buffer = writeElement(buffer, value, spec.getType());
+            if (layout != null) {
+                layout.add(FIELD_KEYS[fieldNumber], spec.isVariable() ? prefixStart : -1, start, buffer.position(),
+                           value.length());
+            }
+        }
+
+        buffers.set(buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Renders a packed message as the string sent to the parser service: the ASCII text itself
+     * for ASCII encoding, or the bytes as uppercase hex for BCD encoding.
+     */
+    public String toWireString(ByteBuffer packed) {
+        if (encoding == Encoding.ASCII) {
+            return new String(packed.array(), packed.position(), packed.remaining(), StandardCharsets.US_ASCII);
+        }
+        byte[] hex = new byte[packed.remaining() * 2];
+        for (int i = 0, p = packed.position(); p < packed.limit(); p++) {
+            int b = packed.get(p) & 0xFF;
+            hex[i++] = HEX_DIGITS[b >>> 4];
+            hex[i++] = HEX_DIGITS[b & 0x0F];
+        }
+        return new String(hex, StandardCharsets.US_ASCII);
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Where the elements of a packed message are, in message order: the MTI, the bitmaps, then the fields
+     */
+    public static final class Layout {
+        private String[] keys = new String[16];
+        private int[] prefixStarts = new int[16];
+        private int[] valueStarts = new int[16];
+        private int[] valueEnds = new int[16];
+        private int[] valueLengths = new int[16];
+        private int count;
+
+        private void add(String key, int prefixStart, int valueStart, int valueEnd, int valueLength) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                prefixStarts = Arrays.copyOf(prefixStarts, count * 2);
+                valueStarts = Arrays.copyOf(valueStarts, count * 2);
+                valueEnds = Arrays.copyOf(valueEnds, count * 2);
+                valueLengths = Arrays.copyOf(valueLengths, count * 2);
+            }
+            keys[count] = key;
+            prefixStarts[count] = prefixStart;
+            valueStarts[count] = valueStart;
+            valueEnds[count] = valueEnd;
+            valueLengths[count] = valueLength;
+            count++;
+        }
+
+        public int size() {
+            return count;
+        }
+
+        /**
+         * @return "MTI", "PrimaryBitmap", "SecondaryBitmap" or the field number
+         */
+        public String getKey(int element) {
+            return keys[element];
+        }
+
+        /**
+         * @return Offset of the element's first byte, its length prefix if it has one
+         */
+        public int getStart(int element) {
+            return prefixStarts[element] >= 0 ? prefixStarts[element] : valueStarts[element];
+        }
+
+        /**
+         * @return Offset of the element's value, just past its length prefix
+         */
+        public int getValueStart(int element) {
+            return valueStarts[element];
+        }
+
+        public int getValueEnd(int element) {
+            return valueEnds[element];
+        }
+
+        /**
+         * @return The value's length in characters (bits for bitmaps), as given in a length prefix
+         */
+        public int getValueLength(int element) {
+            return valueLengths[element];
+        }
+
+        public boolean hasLengthPrefix(int element) {
+            return prefixStarts[element] >= 0;
+        }
+    }
+
+    private ByteBuffer writeBitmap(ByteBuffer buffer, long bitmap, String override) {
+        if (override != null) {
+            return writeElement(buffer, override, FieldSpec.Type.HEX);
+        }
+        if (encoding == Encoding.ASCII) {
+            buffer = ensureCapacity(buffer, 16);
+            for (int shift = 60; shift >= 0; shift -= 4) {
+                buffer.put(HEX_DIGITS[(int) (bitmap >>> shift) & 0x0F]);
+            }
+            return buffer;
+        }
+        buffer = ensureCapacity(buffer, 8);
+        buffer.putLong(bitmap);
+        return buffer;
+    }
+
+    private ByteBuffer writeLengthPrefix(ByteBuffer buffer, int fieldNumber, int length, int digits) {
+        if (length >= (digits == 2 ? 100 : 1000)) {
+            throw new IllegalArgumentException("Field " + fieldNumber + " length " + length +
+                                               " does not fit in a " + digits + "-digit length prefix");
+        }
+        if (encoding == Encoding.ASCII) {
+            buffer = ensureCapacity(buffer, digits);
+            if (digits == 3) {
+                buffer.put((byte) ('0' + length / 100));
+            }
+            buffer.put((byte) ('0' + length / 10 % 10));
+            buffer.put((byte) ('0' + length % 10));
+            return buffer;
+        }
+        buffer = ensureCapacity(buffer, 2);
+        if (digits == 3) {
+            buffer.put((byte) (length / 100));
+        }
+        buffer.put((byte) ((length / 10 % 10) << 4 | length % 10));
+        return buffer;
+    }
+
+    private ByteBuffer writeElement(ByteBuffer buffer, String value, FieldSpec.Type type) {
+        int length = value.length();
+        if (encoding == Encoding.ASCII || type == FieldSpec.Type.ALPHANUMERIC) {
+            buffer = ensureCapacity(buffer, length);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                buffer.put(c < 0x80 ? (byte) c : (byte) '?');
+            }
+            return buffer;
+        }
+
+        if (type == FieldSpec.Type.NUMERIC) {
+            // Odd-length values are left-padded with a zero nibble
+            buffer = ensureCapacity(buffer, (length + 1) / 2);
+            int i = 0;
+            if ((length & 1) == 1) {
+                buffer.put((byte) digit(value, i++));
+            }
+            while (i < length) {
+                buffer.put((byte) (digit(value, i) << 4 | digit(value, i + 1)));
+                i += 2;
+            }
+        } else if (type == FieldSpec.Type.BINARY) {
+            // Bit strings are packed eight bits per byte, the last byte right-padded with zero bits
+            buffer = ensureCapacity(buffer, (length + 7) / 8);
+            for (int i = 0; i < length; i += 8) {
+                int b = 0;
+                for (int bit = 0; bit < 8; bit++) {
+                    b = b << 1 | (i + bit < length ? bit(value, i + bit) : 0);
+                }
+                buffer.put((byte) b);
+            }
+        } else {
+            buffer = ensureCapacity(buffer, (length + 1) / 2);
+            for (int i = 0; i < length; i += 2) {
+                int high = nibble(value, i);
+                int low = i + 1 < length ? nibble(value, i + 1) : 0;
+                buffer.put((byte) (high << 4 | low));
+            }
+        }
+        return buffer;
+    }
+
+    private static int digit(String value, int index) {
+        char c = value.charAt(index);
+        if (c < '0' || c > '9') {
+            throw new IllegalArgumentException("Value cannot be BCD encoded, non-digit at position " + index);
+        }
+        return c - '0';
+    }
+
+    private static int bit(String value, int index) {
+        char c = value.charAt(index);
+        if (c != '0' && c != '1') {
+            throw new IllegalArgumentException("Value cannot be binary encoded, non-binary digit at position " + index);
+        }
+        return c - '0';
+    }
+
+    private static int nibble(String value, int index) {
+        char c = value.charAt(index);
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        throw new IllegalArgumentException("Value cannot be hex encoded, non-hex character at position " + index);
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int needed) {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
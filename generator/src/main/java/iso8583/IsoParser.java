@@ -0,0 +1,38 @@
+package iso8583;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Service provider interface for a parser library run in-process by {@link InProcessParserTransport}.
+ * Libraries register an {@link IsoParser.Provider} in
+ * META-INF/services/iso8583.IsoParser$Provider; the built-in "reference" provider is always available.
+ */
+public interface IsoParser {
+
+    /**
+     * Parses one packed message.
+     * @param message The message bytes, positioned at the MTI; only valid for the duration of the call
+     * @return The parsed data elements keyed like the field config ("MTI", "2".."128")
+     * @throws Exception If the parser rejects the message; any exception is reported as a rejection
+     */
+    Map<String, String> parse(ByteBuffer message) throws Exception;
+
+    /**
+     * Creates parsers, looked up through {@link java.util.ServiceLoader}
+     */
+    interface Provider {
+
+        /**
+         * @return The name to select this provider with -Diso8583.inProcessParser
+         */
+        String name();
+
+        /**
+         * @param fieldSpecs The compiled field config of the run
+         * @param encoding The wire encoding messages are packed with
+         * @return A parser safe to call from several threads at once
+         */
+        IsoParser create(FieldSpecs fieldSpecs, IsoMessagePacker.Encoding encoding);
+    }
+}
@@ -0,0 +1,123 @@
+package iso8583;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JUnit XML for CI: one testsuite per field, with a testcase for each invalid scenario and one for its
+ * recovery send. A suite's counts are only known at its end, so one field's results are held until then.
+ */
+final class JUnitXmlResultSink implements ResultSink {
+
+    private final ChannelReportWriter out;
+    private final List<CaseResult> fieldCases = new ArrayList<>();
+    private String fieldNumber;
+    private String fieldName;
+
+    JUnitXmlResultSink(Path file) throws IOException {
+        this.out = new ChannelReportWriter(file);
+        out.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.append("<testsuites name=\"ISO8583 Parser Test Results\">\n");
+    }
+
+    @Override
+    public void validBaseline(boolean passed) throws IOException {
+        out.append("  <testsuite name=\"Valid Data\" tests=\"1\" failures=\"").append(passed ? 0 : 1).append("\">\n");
+        out.append("    <testcase classname=\"iso8583.valid\" name=\"all_valid\"");
+        endTestcase(passed, false, false, "Parser did not accept the all-valid message");
+        out.append("  </testsuite>\n");
+    }
+
+    @Override
+    public void fieldStarted(String fieldNumber, String name) {
+        this.fieldNumber = fieldNumber;
+        this.fieldName = name;
+        fieldCases.clear();
+    }
+
+    @Override
+    public void caseFinished(CaseResult result) {
+        fieldCases.add(result);
+    }
+
+    @Override
+    public void fieldFinished() throws IOException {
+        // Sends that got no response are JUnit errors rather than failures, messages that were never sent skipped
+        int failures = 0;
+        int errors = 0;
+        int skipped = 0;
+        for (CaseResult result : fieldCases) {
+            failures += (result.passed || result.transportError || result.notSent ? 0 : 1) + 
+                        (result.recovered || result.recoveryTransportError || result.recoveryNotSent ? 0 : 1);
+            errors += result.transportErrors();
+            skipped += result.notSentTests();
+        }
+        out.append("  <testsuite name=\"");
+        appendEscaped("Field " + fieldNumber + ": " + fieldName);
+        out.append("\" tests=\"").append(fieldCases.size() * 2L).append("\" failures=\"").append(failures)
+           .append("\" errors=\"").append(errors).append("\" skipped=\"").append(skipped).append("\">\n");
+        for (CaseResult result : fieldCases) {
+            appendTestcase(result.category, result.description);
+            endTestcase(result.passed, result.transportError, result.notSent, "Parser accepted the invalid value");
+            appendTestcase(result.category + "_recovery", "valid value restored");
+            endTestcase(result.recovered, result.recoveryTransportError, result.recoveryNotSent,
+                        "Parser did not accept the message with the valid value restored");
+        }
+        out.append("  </testsuite>\n");
+        fieldCases.clear();
+    }
+
+    @Override
+    public void finish(int totalTests, int passedTests, int transportErrors, int notSent, long cacheRequests, 
+                       long cacheSavedSends) throws IOException {
+        out.append("</testsuites>\n");
+    }
+
+    private void appendTestcase(String category, String description) throws IOException {
+        out.append("    <testcase classname=\"iso8583.field_");
+        appendEscaped(fieldNumber);
+        out.append("\" name=\"");
+        appendEscaped(category + " (" + description + ")");
+        out.append('"');
+    }
+
+    private void endTestcase(boolean passed, boolean transportError, boolean notSent, String failureMessage) 
+            throws IOException {
+        if (transportError) {
+            out.append(">\n      <error message=\"No response from the parser\"/>\n    </testcase>\n");
+        } else if (notSent) {
+            out.append(">\n      <skipped message=\"Value could not be packed into the message\"/>\n    </testcase>\n");
+        } else if (passed) {
+            out.append("/>\n");
+        } else {
+            out.append(">\n      <failure message=\"").append(failureMessage).append("\"/>\n    </testcase>\n");
+        }
+    }
+
+    private void appendEscaped(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&': out.append("&amp;"); break;
+                case '<': out.append("&lt;"); break;
+                case '>': out.append("&gt;"); break;
+                case '"': out.append("&quot;"); break;
+                default:
+                    // Control characters other than tab/newline are not allowed in XML 1.0
+                    out.append(c < 0x20 && c != '\t' && c != '\n' && c != '\r' ? '?' : c);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,80 @@
+package iso8583;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+
+/**
+ * One JSON object per line for analytics: a "valid" record for the baseline, a "case" record per
+ * field/category and a closing "summary" record
+ */
+final class JsonlResultSink implements ResultSink {
+
+    private final ChannelReportWriter out;
+
+    JsonlResultSink(Path file) throws IOException {
+        this.out = new ChannelReportWriter(file);
+    }
+
+    @Override
+    public void validBaseline(boolean passed) throws IOException {
+        out.append("{\"type\":\"valid\",\"passed\":").append(Boolean.toString(passed)).append("}\n");
+    }
+
+    @Override
+    public void fieldStarted(String fieldNumber, String name) {
+    }
+
+    @Override
+    public void caseFinished(CaseResult result) throws IOException {
+        out.append("{\"type\":\"case\",\"field\":");
+        appendString(result.fieldNumber);
+        out.append(",\"name\":");
+        appendString(result.fieldName);
+        out.append(",\"category\":");
+        appendString(result.category);
+        out.append(",\"description\":");
+        appendString(result.description);
+        out.append(",\"passed\":").append(Boolean.toString(result.passed))
+           .append(",\"recovered\":").append(Boolean.toString(result.recovered))
+           .append(",\"transportError\":").append(Boolean.toString(result.transportError))
+           .append(",\"recoveryTransportError\":").append(Boolean.toString(result.recoveryTransportError))
+           .append(",\"notSent\":").append(Boolean.toString(result.notSent))
+           .append(",\"recoveryNotSent\":").append(Boolean.toString(result.recoveryNotSent))
+           .append("}\n");
+    }
+
+    @Override
+    public void fieldFinished() {
+    }
+
+    @Override
+    public void finish(int totalTests, int passedTests, int transportErrors, int notSent, long cacheRequests, 
+                       long cacheSavedSends) throws IOException {
+        out.append("{\"type\":\"summary\",\"total\":").append(totalTests)
+           .append(",\"passed\":").append(passedTests)
+           .append(",\"transportErrors\":").append(transportErrors)
+           .append(",\"notSent\":").append(notSent);
+        if (cacheRequests >= 0) {
+            out.append(",\"cacheRequests\":").append(cacheRequests)
+               .append(",\"cacheSavedSends\":").append(cacheSavedSends);
+        }
+        out.append("}\n");
+    }
+
+    private void appendString(String value) throws IOException {
+        out.append('"').append(CharBuffer.wrap(JsonStringEncoder.getInstance().quoteAsString(value))).append('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
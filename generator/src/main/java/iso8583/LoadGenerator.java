@@ -0,0 +1,202 @@
+package iso8583;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Open-loop load generator for the parser service.
+ * Messages are sent on a fixed schedule at the target rate regardless of how quickly responses come
+ * back, and each latency is measured from the message's intended send time rather than the actual one.
+ * A parser that stalls therefore shows up in the percentiles (no coordinated omission) instead of
+ * silently lowering the offered load.
+ */
+public class LoadGenerator {
+
+    private final double targetRate;
+    private final long durationSeconds;
+    private final long messageCount;
+    private final double invalidRatio;
+    private final long seed;
+
+    /**
+     * @param targetRate Messages per second to offer
+     * @param durationSeconds How long to run; ignored when messageCount is positive
+     * @param messageCount Number of messages to send, or 0 to run for durationSeconds
+     * @param invalidRatio Fraction of messages (0.0 - 1.0) that carry one invalid field value
+     * @param seed Seed for choosing which messages to send
+     */
+    public LoadGenerator(double targetRate, long durationSeconds, long messageCount, double invalidRatio, long seed) {
+        if (targetRate <= 0) {
+            throw new IllegalArgumentException("Target rate must be positive: " + targetRate);
+        }
+        this.targetRate = targetRate;
+        this.durationSeconds = durationSeconds;
+        this.messageCount = messageCount;
+        this.invalidRatio = invalidRatio;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs the load test and waits for every outstanding response
+     * @param validMessage The built all-valid message
+     * @param invalidMessages Built messages with one invalid field each; may be empty
+     * @param sender Sends one message asynchronously and completes with the parser response
+     * @param drainTimeoutMillis How long to wait for outstanding responses once sending has finished
+     * @return The collected results
+     */
+    public Results run(String validMessage, List<String> invalidMessages,
+                       Function<String, CompletableFuture<String>> sender, long drainTimeoutMillis) {
+        long total = messageCount > 0 ? messageCount : (long) Math.ceil(targetRate * durationSeconds);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / targetRate);
+        long scheduleSeconds = total * intervalNanos / TimeUnit.SECONDS.toNanos(1);
+        Results results = new Results((int) (scheduleSeconds + drainTimeoutMillis / 1000) + 2);
+        SplittableRandom random = new SplittableRandom(seed);
+
+        long start = System.nanoTime();
+        results.startNanos = start;
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            waitUntil(intended);
+
+            boolean invalid = !invalidMessages.isEmpty() && random.nextDouble() < invalidRatio;
+            String message = invalid ? invalidMessages.get(random.nextInt(invalidMessages.size())) : validMessage;
+            results.sent.incrementAndGet();
+
+            CompletableFuture<String> response;
+            try {
+                response = sender.apply(message);
+            } catch (RuntimeException e) {
+                response = CompletableFuture.failedFuture(e);
+            }
+            response.whenComplete((body, error) -> results.record(intended, invalid, body, error));
+        }
+        results.sendEndNanos = System.nanoTime();
+
+        long drainDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMillis);
+        while (results.completed.get() < results.sent.get() && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        results.endNanos = System.nanoTime();
+        return results;
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            // Park for coarse waits and spin for the last stretch to keep the schedule accurate
+            if (remaining > 100_000) {
+                LockSupport.parkNanos(remaining - 50_000);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Latency and throughput collected during a run. Updated concurrently from response callbacks.
+     */
+    public static final class Results {
+        private final LatencyHistogram all = new LatencyHistogram();
+        private final LatencyHistogram valid = new LatencyHistogram();
+        private final LatencyHistogram invalid = new LatencyHistogram();
+        private final AtomicLong sent = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong transportErrors = new AtomicLong();
+        private final AtomicLong parserErrors = new AtomicLong();
+        // Completions per second since the start of the run
+        private final AtomicLongArray perSecond;
+        private long startNanos;
+        private long sendEndNanos;
+        private long endNanos;
+
+        private Results(int seconds) {
+            this.perSecond = new AtomicLongArray(seconds);
+        }
+
+        private void record(long intendedNanos, boolean invalidMessage, String body, Throwable error) {
+            long now = System.nanoTime();
+            long latency = now - intendedNanos;
+            all.recordNanos(latency);
+            (invalidMessage ? invalid : valid).recordNanos(latency);
+            if (error != null) {
+                // An error status from the parser itself is its answer to the message, not a lost message
+                if (isParserStatus(error)) {
+                    parserErrors.incrementAndGet();
+                } else {
+                    transportErrors.incrementAndGet();
+                }
+            } else if (body.contains("ISOParserException") || body.contains("Error")) {
+                parserErrors.incrementAndGet();
+            }
+            int second = (int) Math.min(perSecond.length() - 1, (now - startNanos) / TimeUnit.SECONDS.toNanos(1));
+            perSecond.incrementAndGet(second);
+            completed.incrementAndGet();
+        }
+
+        private static boolean isParserStatus(Throwable error) {
+            Throwable cause = error;
+            while ((cause instanceof CompletionException || cause instanceof UncheckedIOException) && 
+                   cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            return cause instanceof ParserHttpClient.StatusException && 
+                   !((ParserHttpClient.StatusException) cause).isTransient();
+        }
+
+        /**
+         * Formats the results as the text written next to the functional test results
+         */
+        public String format(double targetRate, double invalidRatio) {
+            StringBuilder report = new StringBuilder();
+            report.append("ISO8583 Parser Load Test Results\n");
+            report.append("================================\n\n");
+            report.append("Target Rate: ").append(String.format("%.1f", targetRate)).append(" msgs/sec\n");
+            report.append("Invalid Message Ratio: ").append(String.format("%.1f", invalidRatio * 100)).append("%\n");
+            report.append("Messages Sent: ").append(sent.get()).append("\n");
+            report.append("Responses Received: ").append(completed.get() - transportErrors.get()).append("\n");
+            report.append("Transport Errors: ").append(transportErrors.get()).append("\n");
+            report.append("Parser Rejections: ").append(parserErrors.get()).append("\n");
+            report.append("Outstanding At End: ").append(sent.get() - completed.get()).append("\n");
+            double sendSeconds = (sendEndNanos - startNanos) / 1e9;
+            double totalSeconds = (endNanos - startNanos) / 1e9;
+            report.append("Achieved Send Rate: ").append(String.format("%.1f", sendSeconds > 0 ? sent.get() / sendSeconds : 0))
+                  .append(" msgs/sec\n");
+            report.append("Throughput: ").append(String.format("%.1f", totalSeconds > 0 ? completed.get() / totalSeconds : 0))
+                  .append(" msgs/sec\n\n");
+
+            report.append("Latency (ms, corrected for coordinated omission)\n");
+            report.append("------------------------------------------------\n");
+            appendLatency(report, "All", all);
+            appendLatency(report, "Valid", valid);
+            appendLatency(report, "Invalid", invalid);
+
+            report.append("\nThroughput Per Second\n");
+            report.append("---------------------\n");
+            int lastSecond = (int) Math.min(perSecond.length() - 1, (endNanos - startNanos) / TimeUnit.SECONDS.toNanos(1));
+            for (int second = 0; second <= lastSecond; second++) {
+                report.append("  ").append(second).append("s: ").append(perSecond.get(second)).append("\n");
+            }
+            return report.toString();
+        }
+
+        private static void appendLatency(StringBuilder report, String label, LatencyHistogram histogram) {
+            report.append("  ").append(label).append(" (").append(histogram.getTotalCount()).append("): ")
+                  .append("p50=").append(millis(histogram.getValueAtPercentileMicros(50)))
+                  .append(" p99=").append(millis(histogram.getValueAtPercentileMicros(99)))
+                  .append(" p99.9=").append(millis(histogram.getValueAtPercentileMicros(99.9)))
+                  .append(" max=").append(millis(histogram.getMaxMicros())).append("\n");
+        }
+
+        private static String millis(long micros) {
+            return String.format("%.3f", micros / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Minimal stand-in for the parser service, bound to the loopback interface on a free port.
+ * Every POST is answered with the same canned JSON response, or with the response of a responder
+ * function given the request's isoMessage, so the HTTP send path can be run and benchmarked without
+ * the real service or a network.
+ *
+ * A request whose body is a JSON array of {"isoMessage": ...} objects is a batch, answered with a JSON
+ * array of the responses to each message, in the same order.
+ *
+ * Starting a stub sets the JVM-wide sun.net.httpserver.nodelay property to true unless it is already
+ * set. The JDK server reads it once, when the first server in the JVM is created, so it also applies
+ * to any HttpServer started later and has no effect if one was started earlier.
+ */
+public class LoopbackParserStub implements AutoCloseable {
+
+    public static final String PATH = "/iso8583/parse";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile byte[] responseBody;
+    private volatile int statusCode = 200;
+    private final Function<String, String> responder;
+
+    /**
+     * Starts the stub
+     * @param responseJson The response returned for every request
+     * @param threads Number of threads serving requests
+     */
+    public LoopbackParserStub(String responseJson, int threads) throws IOException {
+        this(responseJson, null, threads);
+    }
+
+    /**
+     * Starts the stub
+     * @param responder Returns the response JSON for the isoMessage of each request
+     * @param threads Number of threads serving requests
+     */
+    public LoopbackParserStub(Function<String, String> responder, int threads) throws IOException {
+        this("[]", responder, threads);
+    }
+
+    private LoopbackParserStub(String responseJson, Function<String, String> responder, int threads) 
+            throws IOException {
+        this.responseBody = responseJson.getBytes(StandardCharsets.UTF_8);
+        this.responder = responder;
+        // Without TCP_NODELAY the separate header and body writes hit the delayed-ACK stall (~40 ms per request)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "loopback-parser-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Builds a response in the parser's format that echoes the given field data back
+     */
+    public static String responseFor(Map<String, String> fieldData) {
+        ArrayNode response = MAPPER.createArrayNode();
+        for (Map.Entry<String, String> entry : fieldData.entrySet()) {
+            response.addObject()
+                    .put("dataElementId", entry.getKey())
+                    .put("value", entry.getValue());
+        }
+        return response.toString();
+    }
+
+    /**
+     * @return The URL to point -Diso8583.parserUrl at
+     */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + PATH;
+    }
+
+    public void setResponse(String responseJson) {
+        this.responseBody = responseJson.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sets the HTTP status every request is answered with, 200 unless set
+     */
+    public void setStatus(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream request = exchange.getRequestBody()) {
+            byte[] requestBody = request.readAllBytes();
+            if (isBatch(requestBody)) {
+                body = batchResponse(MAPPER.readTree(requestBody));
+            } else if (responder != null) {
+                String isoMessage = MAPPER.readTree(requestBody).path("isoMessage").asText();
+                body = responder.apply(isoMessage).getBytes(StandardCharsets.UTF_8);
+            } else {
+                body = responseBody;
+            }
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(statusCode, body.length);
+        try (OutputStream response = exchange.getResponseBody()) {
+            response.write(body);
+        }
+    }
+
+    private static boolean isBatch(byte[] requestBody) {
+        for (byte b : requestBody) {
+            if (!Character.isWhitespace(b)) {
+                return b == '[';
+            }
+        }
+        return false;
+    }
+
+    private byte[] batchResponse(JsonNode messages) {
+        StringBuilder response = new StringBuilder("[");
+        String canned = responder == null ? new String(responseBody, StandardCharsets.UTF_8) : null;
+        for (int i = 0; i < messages.size(); i++) {
+            if (i > 0) {
+                response.append(',');
+            }
+            response.append(canned != null ? canned : responder.apply(messages.get(i).path("isoMessage").asText()));
+        }
+        return response.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,57 @@
+package iso8583;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends over real HTTP to a {@link LoopbackParserStub} on this machine, which answers with an
+ * in-process parser. Exercises the full HTTP client path without the deployed service.
+ */
+public class LoopbackParserTransport implements ParserTransport {
+
+    private final LoopbackParserStub stub;
+    private final ParserHttpClient client;
+
+    /**
+     * @param parser The in-process parser answering the stub's requests
+     * @param threads Number of threads serving requests
+     * @param http2 Whether the client negotiates HTTP/2 (the stub answers over HTTP/1.1)
+     * @param connectTimeout Timeout for establishing a new connection
+     * @param requestTimeout Timeout for a single request
+     */
+    public LoopbackParserTransport(InProcessParserTransport parser, int threads, boolean http2,
+                                   Duration connectTimeout, Duration requestTimeout) throws IOException {
+        this.stub = new LoopbackParserStub(isoMessage -> {
+            try {
+                return parser.send(isoMessage);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, threads);
+        this.client = new ParserHttpClient(stub.getUrl(), http2, connectTimeout, requestTimeout);
+    }
+
+    /**
+     * @return The client sending to the stub
+     */
+    ParserHttpClient getClient() {
+        return client;
+    }
+
+    @Override
+    public String send(String isoMessage) throws IOException {
+        return client.send(isoMessage);
+    }
+
+    @Override
+    public CompletableFuture<String> sendAsync(String isoMessage) {
+        return client.sendAsync(isoMessage);
+    }
+
+    @Override
+    public void close() {
+        stub.close();
+    }
+}
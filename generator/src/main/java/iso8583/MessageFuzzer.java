@@ -0,0 +1,826 @@
+package iso8583;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mutational fuzzer for the parser. Every case is the packed all-valid message with one to three of its
+ * elements damaged on the byte level, driven by the field config: lengths at and past the declared limits,
+ * LL/LLL prefixes that disagree with the data, characters outside the field's type, bitmap bits that do not
+ * match the fields present, and dropped, duplicated, truncated or bit-flipped elements.
+ *
+ * The field config itself is the oracle (see {@link FieldRuleOracle}), so the parser under test is never
+ * judged by a parser. A case fails if the parser under test crashes on it, or accepts it while it breaks a
+ * field rule. Failures are told apart by the crash signature or the broken rule; the first case of each is
+ * shrunk: mutations that are not needed for the failure are dropped, then the fields that were not mutated,
+ * then byte ranges, as long as it still fails the same way (same crash, or same broken rule).
+ *
+ * Cases are generated and checked on primitive byte arrays, one reusable buffer per worker thread, and each
+ * worker draws its cases from its own SplittableRandom split off the seed.
+ */
+final class MessageFuzzer {
+
+    enum Mutation {
+        LENGTH_BOUNDARY, LENGTH_PREFIX, CHARSET, BITMAP_BIT, DROP_ELEMENT, DUPLICATE_ELEMENT, TRUNCATE, BIT_FLIP
+    }
+
+    private static final Mutation[] MUTATIONS = Mutation.values();
+    private static final int MAX_MUTATIONS = 3;
+    // Cases a worker claims at a time
+    private static final int BATCH = 1024;
+    // Parser calls spent shrinking one failure
+    private static final int MAX_SHRINK_ATTEMPTS = 2_000;
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NOT_NUMERIC = "AZaz /-.:+".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NOT_BINARY = "239Ax ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NOT_HEX = "GZgz -.".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NOT_TEXT = {0x00, 0x09, 0x1F, 0x7F, (byte) 0x80, (byte) 0xFF, '"', '\\', '\'', '|'};
+
+    /**
+     * What the parser under test made of a message
+     */
+    static final class Verdict {
+        static final Verdict ACCEPTED = new Verdict("ACCEPTED", null, null);
+        static final Verdict REJECTED = new Verdict("REJECTED", null, null);
+        static final Verdict NO_RESPONSE = new Verdict("NO_RESPONSE", null, null);
+
+        final String kind;
+        // For a crash: the exception class or HTTP status, used to tell crashes apart
+        final String signature;
+        final String detail;
+
+        private Verdict(String kind, String signature, String detail) {
+            this.kind = kind;
+            this.signature = signature;
+            this.detail = detail;
+        }
+
+        static Verdict crashed(String signature, String detail) {
+            return new Verdict("CRASHED", signature, detail);
+        }
+
+        boolean isCrash() {
+            return signature != null;
+        }
+    }
+
+    /**
+     * The parser under test
+     */
+    interface Target {
+        Verdict test(byte[] message, int length);
+    }
+
+    /**
+     * Calls a parser library directly. IllegalArgumentException and checked exceptions are its rejections;
+     * any other exception or error is a crash.
+     */
+    static Target inProcessTarget(IsoParser parser) {
+        return (message, length) -> {
+            try {
+                parser.parse(ByteBuffer.wrap(message, 0, length));
+                return Verdict.ACCEPTED;
+            } catch (IllegalArgumentException e) {
+                return Verdict.REJECTED;
+            } catch (RuntimeException | Error e) {
+                return Verdict.crashed(e.getClass().getName(), String.valueOf(e));
+            } catch (Exception e) {
+                return Verdict.REJECTED;
+            }
+        };
+    }
+
+    /**
+     * Sends to the parser through a transport. A 5xx status is a crash; a send that gets no response is
+     * counted but not treated as a failure, as it may be the network rather than the message.
+     */
+    static Target transportTarget(ParserTransport transport, IsoMessagePacker.Encoding encoding) {
+        return (message, length) -> {
+            String wire = encoding == IsoMessagePacker.Encoding.BCD ? hex(message, length) :
+                          new String(message, 0, length, StandardCharsets.ISO_8859_1);
+            try {
+                String response = transport.send(wire);
+                return response.contains("ISOParserException") || response.contains("Error") ?
+                       Verdict.REJECTED : Verdict.ACCEPTED;
+            } catch (ParserHttpClient.StatusException e) {
+                return e.getStatusCode() >= 500 && !e.isTransient() ?
+                       Verdict.crashed("HTTP " + e.getStatusCode(), e.getMessage()) : Verdict.REJECTED;
+            } catch (IOException e) {
+                return Verdict.NO_RESPONSE;
+            }
+        };
+    }
+
+    private final boolean bcd;
+    private final byte[] baseline;
+    private final IsoMessagePacker.Layout layout;
+    // Per layout element; null for the MTI and bitmaps when the config has no spec for them
+    private final FieldSpec[] specs;
+    private final int[] variableElements;
+    private final int[] valueElements;
+    private final int[] bitmapElements;
+    private final int[] fieldElements;
+    // Element index of the primary and secondary bitmap, -1 if absent
+    private final int primaryBitmap;
+    private final int secondaryBitmap;
+    private final Target target;
+    private final FieldRuleOracle oracle;
+    private final int maxReported;
+
+    /**
+     * @param baseline The packed all-valid message, which the parser under test must accept
+     * @param layout Where the elements of the baseline are
+     * @param maxReported Distinct failures shrunk and reported
+     */
+    MessageFuzzer(FieldSpecs fieldSpecs, IsoMessagePacker.Encoding encoding, byte[] baseline,
+                  IsoMessagePacker.Layout layout, Target target, int maxReported) {
+        this.bcd = encoding == IsoMessagePacker.Encoding.BCD;
+        this.baseline = baseline;
+        this.layout = layout;
+        this.target = target;
+        this.oracle = new FieldRuleOracle(fieldSpecs, encoding);
+        String baselineViolation = oracle.violation(baseline, baseline.length);
+        if (baselineViolation != null) {
+            throw new IllegalArgumentException("The valid message breaks the field rules: " + baselineViolation);
+        }
+        this.maxReported = maxReported;
+        this.specs = new FieldSpec[layout.size()];
+        List<Integer> variable = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+        List<Integer> bitmaps = new ArrayList<>();
+        List<Integer> fields = new ArrayList<>();
+        int primary = -1;
+        int secondary = -1;
+        for (int e = 0; e < layout.size(); e++) {
+            specs[e] = fieldSpecs.byKey(layout.getKey(e));
+            if (isBitmap(e)) {
+                bitmaps.add(e);
+                if (layout.getKey(e).equals("PrimaryBitmap")) {
+                    primary = e;
+                } else {
+                    secondary = e;
+                }
+            } else {
+                if (Character.isDigit(layout.getKey(e).charAt(0))) {
+                    fields.add(e);
+                }
+                values.add(e);
+                if (layout.hasLengthPrefix(e)) {
+                    variable.add(e);
+                }
+            }
+        }
+        this.variableElements = variable.stream().mapToInt(Integer::intValue).toArray();
+        this.valueElements = values.stream().mapToInt(Integer::intValue).toArray();
+        this.bitmapElements = bitmaps.stream().mapToInt(Integer::intValue).toArray();
+        this.fieldElements = fields.stream().mapToInt(Integer::intValue).toArray();
+        this.primaryBitmap = primary;
+        this.secondaryBitmap = secondary;
+    }
+
+    /**
+     * Runs cases on the given number of threads until maxCases have run or the time is up
+     */
+    Results run(long seed, int threads, long maxCases, long durationNanos) throws InterruptedException {
+        Results results = new Results();
+        AtomicLong nextCase = new AtomicLong();
+        long start = System.nanoTime();
+        long deadline = durationNanos == Long.MAX_VALUE ? Long.MAX_VALUE : start + durationNanos;
+        SplittableRandom root = new SplittableRandom(seed);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                Worker worker = new Worker(root.split(), results);
+                executor.execute(() -> worker.run(nextCase, maxCases, deadline));
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        results.elapsedNanos = System.nanoTime() - start;
+        return results;
+    }
+
+    private boolean isBitmap(int element) {
+        return layout.getKey(element).endsWith("Bitmap");
+    }
+
+    private FieldSpec.Type type(int element) {
+        if (isBitmap(element)) {
+            return FieldSpec.Type.HEX;
+        }
+        return specs[element] != null ? specs[element].getType() : FieldSpec.Type.NUMERIC;
+    }
+
+    /**
+     * @return The field rule the message breaks, without the offending value, or null if it keeps them all
+     */
+    private String oracleReason(byte[] message, int length) {
+        String violation = oracle.violation(message, length);
+        return violation == null || violation.indexOf(':') < 0 ? violation : violation.substring(0, violation.indexOf(':'));
+    }
+
+    /**
+     * The mutations of one case, in descending element order so that each leaves the offsets of the
+     * elements before it unchanged
+     */
+    private static final class Plan {
+        final Mutation[] mutations = new Mutation[MAX_MUTATIONS];
+        final int[] elements = new int[MAX_MUTATIONS];
+        final long[] seeds = new long[MAX_MUTATIONS];
+        int count;
+
+        Plan copy() {
+            Plan copy = new Plan();
+            System.arraycopy(mutations, 0, copy.mutations, 0, count);
+            System.arraycopy(elements, 0, copy.elements, 0, count);
+            System.arraycopy(seeds, 0, copy.seeds, 0, count);
+            copy.count = count;
+            return copy;
+        }
+    }
+
+    private void plan(SplittableRandom random, Plan plan) {
+        int wanted = random.nextInt(100) < 75 ? 1 : random.nextInt(100) < 80 ? 2 : 3;
+        plan.count = 0;
+        for (int attempt = 0; plan.count < wanted && attempt < wanted * 4; attempt++) {
+            Mutation mutation = MUTATIONS[random.nextInt(MUTATIONS.length)];
+            int[] candidates = mutation == Mutation.LENGTH_PREFIX ? variableElements :
+                               mutation == Mutation.BITMAP_BIT ? bitmapElements :
+                               mutation == Mutation.LENGTH_BOUNDARY ? valueElements : null;
+            int element = candidates == null ? random.nextInt(layout.size()) :
+                          candidates.length > 0 ? candidates[random.nextInt(candidates.length)] : -1;
+            if (element < 0 || contains(plan, element)) {
+                continue;
+            }
+            // Insert keeping the elements in descending order
+            int i = plan.count++;
+            while (i > 0 && plan.elements[i - 1] < element) {
+                plan.mutations[i] = plan.mutations[i - 1];
+                plan.elements[i] = plan.elements[i - 1];
+                plan.seeds[i] = plan.seeds[i - 1];
+                i--;
+            }
+            plan.mutations[i] = mutation;
+            plan.elements[i] = element;
+            plan.seeds[i] = random.nextLong();
+        }
+    }
+
+    private static boolean contains(Plan plan, int element) {
+        for (int i = 0; i < plan.count; i++) {
+            if (plan.elements[i] == element) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the case's message from the baseline
+     */
+    private void apply(Plan plan, Bytes message) {
+        message.set(baseline, baseline.length);
+        for (int i = 0; i < plan.count; i++) {
+            mutate(plan.mutations[i], plan.elements[i], new SplittableRandom(plan.seeds[i]), message);
+        }
+    }
+
+    /**
+     * Builds a reduced version of the case's message while shrinking
+     * @param active Which of the plan's mutations to apply
+     * @param removed Elements to leave out, with their bitmap bit cleared
+     */
+    private void apply(Plan plan, boolean[] active, boolean[] removed, Bytes message) {
+        message.set(baseline, baseline.length);
+        int next = 0;
+        // Back to front, like the plan, so the elements still to do stay at their baseline offsets
+        for (int e = layout.size() - 1; e >= 0; e--) {
+            if (removed[e]) {
+                int fieldNumber = Integer.parseInt(layout.getKey(e));
+                int bitmap = fieldNumber <= 64 ? primaryBitmap : secondaryBitmap;
+                setBitmapBit(layout.getValueStart(bitmap), (fieldNumber - 1) % 64, false, message);
+                message.replace(layout.getStart(e), layout.getValueEnd(e), new byte[0]);
+            }
+            for (; next < plan.count && plan.elements[next] == e; next++) {
+                if (active[next]) {
+                    mutate(plan.mutations[next], e, new SplittableRandom(plan.seeds[next]), message);
+                }
+            }
+        }
+    }
+
+    private void mutate(Mutation mutation, int e, SplittableRandom random, Bytes message) {
+        int start = layout.getStart(e);
+        int valueStart = layout.getValueStart(e);
+        int valueEnd = layout.getValueEnd(e);
+        switch (mutation) {
+            case LENGTH_BOUNDARY:
+                mutateLength(e, random, message);
+                break;
+            case LENGTH_PREFIX:
+                message.replace(start, valueStart, wrongPrefix(e, random));
+                break;
+            case CHARSET:
+                if (valueEnd == valueStart) {
+                    message.replace(valueStart, valueStart, new byte[] {violatingByte(type(e), random)});
+                } else {
+                    for (int n = 1 + random.nextInt(3); n > 0; n--) {
+                        int position = valueStart + random.nextInt(valueEnd - valueStart);
+                        message.data[position] = violatingByte(type(e), random);
+                    }
+                }
+                break;
+            case BITMAP_BIT:
+                int bit = random.nextInt(64);
+                setBitmapBit(valueStart, bit, !isBitmapBitSet(valueStart, bit, message), message);
+                break;
+            case DROP_ELEMENT:
+                message.replace(start, valueEnd, new byte[0]);
+                break;
+            case DUPLICATE_ELEMENT:
+                message.replace(valueEnd, valueEnd, Arrays.copyOfRange(baseline, start, valueEnd));
+                break;
+            case TRUNCATE:
+                message.length = start + random.nextInt(valueEnd - start + 1);
+                break;
+            case BIT_FLIP:
+                if (valueEnd == start) {
+                    message.replace(start, start, new byte[] {(byte) random.nextInt(256)});
+                } else {
+                    for (int n = 1 + random.nextInt(4); n > 0; n--) {
+                        message.data[start + random.nextInt(valueEnd - start)] ^= (byte) (1 << random.nextInt(8));
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * Gives the element a length at or past a boundary, keeping its prefix (if any) in step with the data
+     */
+    private void mutateLength(int e, SplittableRandom random, Bytes message) {
+        int current = layout.getValueLength(e);
+        int length;
+        if (layout.hasLengthPrefix(e)) {
+            int digits = specs[e].getLengthPrefixDigits();
+            int prefixMax = digits == 2 ? 99 : 999;
+            int max = specs[e].getMaxLength() >= 0 ? Math.min(specs[e].getMaxLength(), prefixMax) : prefixMax;
+            int[] boundaries = {0, 1, max - 1, max, max + 1, prefixMax};
+            length = Math.max(0, Math.min(prefixMax, boundaries[random.nextInt(boundaries.length)]));
+            if (length == current) {
+                length = max < prefixMax ? max + 1 : 0;
+            }
+            byte[] prefix = prefix(length, digits);
+            byte[] value = filler(type(e), length, random);
+            byte[] element = Arrays.copyOf(prefix, prefix.length + value.length);
+            System.arraycopy(value, 0, element, prefix.length, value.length);
+            message.replace(layout.getStart(e), layout.getValueEnd(e), element);
+        } else {
+            int[] boundaries = {current - 1, current + 1, 0, current * 2};
+            length = Math.max(0, boundaries[random.nextInt(boundaries.length)]);
+            message.replace(layout.getValueStart(e), layout.getValueEnd(e), filler(type(e), length, random));
+        }
+    }
+
+    private byte[] wrongPrefix(int e, SplittableRandom random) {
+        int digits = specs[e].getLengthPrefixDigits();
+        int prefixMax = digits == 2 ? 99 : 999;
+        int current = layout.getValueLength(e);
+        switch (random.nextInt(5)) {
+            case 0:
+                return prefix(current < prefixMax ? current + 1 : current - 1, digits);
+            case 1:
+                return prefix(current > 0 ? current - 1 : 1, digits);
+            case 2:
+                return prefix(current != 0 ? 0 : prefixMax, digits);
+            case 3:
+                return prefix(current != prefixMax ? prefixMax : 0, digits);
+            default:
+                // Not a number at all
+                byte[] prefix = prefix(current, digits);
+                int position = random.nextInt(prefix.length);
+                prefix[position] = bcd ? (byte) (prefix[position] | 0x0A) : NOT_NUMERIC[random.nextInt(NOT_NUMERIC.length)];
+                return prefix;
+        }
+    }
+
+    /**
+     * A length prefix as the packer writes it
+     */
+    private byte[] prefix(int length, int digits) {
+        if (!bcd) {
+            byte[] prefix = new byte[digits];
+            for (int i = digits - 1; i >= 0; i--, length /= 10) {
+                prefix[i] = (byte) ('0' + length % 10);
+            }
+            return prefix;
+        }
+        byte tensAndOnes = (byte) ((length / 10 % 10) << 4 | length % 10);
+        return digits == 3 ? new byte[] {(byte) (length / 100), tensAndOnes} : new byte[] {tensAndOnes};
+    }
+
+    /**
+     * Valid characters of the type, so that only the length is wrong
+     */
+    private byte[] filler(FieldSpec.Type type, int length, SplittableRandom random) {
+        if (!bcd || type == FieldSpec.Type.ALPHANUMERIC) {
+            byte[] value = new byte[length];
+            for (int i = 0; i < length; i++) {
+                value[i] = type == FieldSpec.Type.NUMERIC ? (byte) ('0' + random.nextInt(10)) :
+                           type == FieldSpec.Type.BINARY ? (byte) ('0' + random.nextInt(2)) :
+                           type == FieldSpec.Type.HEX ? HEX_DIGITS[random.nextInt(16)] :
+                           (byte) ('A' + random.nextInt(26));
+            }
+            return value;
+        }
+        byte[] value = new byte[type == FieldSpec.Type.BINARY ? (length + 7) / 8 : (length + 1) / 2];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = type == FieldSpec.Type.NUMERIC ? (byte) (random.nextInt(10) << 4 | random.nextInt(10)) :
+                       (byte) random.nextInt(256);
+        }
+        return value;
+    }
+
+    private byte violatingByte(FieldSpec.Type type, SplittableRandom random) {
+        if (bcd && type == FieldSpec.Type.NUMERIC) {
+            // A nibble that is not a decimal digit
+            int digit = random.nextInt(10);
+            int bad = 0x0A + random.nextInt(6);
+            return (byte) (random.nextBoolean() ? bad << 4 | digit : digit << 4 | bad);
+        }
+        if (bcd && type != FieldSpec.Type.ALPHANUMERIC) {
+            // Every byte is valid binary or hex data, so just change it
+            return (byte) random.nextInt(256);
+        }
+        byte[] choices = type == FieldSpec.Type.NUMERIC ? NOT_NUMERIC : type == FieldSpec.Type.BINARY ? NOT_BINARY :
+                         type == FieldSpec.Type.HEX ? NOT_HEX : NOT_TEXT;
+        return choices[random.nextInt(choices.length)];
+    }
+
+    /**
+     * @param bit 0 for the first bit of the bitmap
+     */
+    private boolean isBitmapBitSet(int bitmapStart, int bit, Bytes message) {
+        if (bcd) {
+            return (message.data[bitmapStart + bit / 8] & 0x80 >>> (bit % 8)) != 0;
+        }
+        return (Character.digit(message.data[bitmapStart + bit / 4], 16) & 8 >>> (bit % 4)) != 0;
+    }
+
+    private void setBitmapBit(int bitmapStart, int bit, boolean set, Bytes message) {
+        if (bcd) {
+            int mask = 0x80 >>> (bit % 8);
+            int position = bitmapStart + bit / 8;
+            message.data[position] = (byte) (set ? message.data[position] | mask : message.data[position] & ~mask);
+            return;
+        }
+        int mask = 8 >>> (bit % 4);
+        int position = bitmapStart + bit / 4;
+        int nibble = Character.digit(message.data[position], 16);
+        message.data[position] = HEX_DIGITS[set ? nibble | mask : nibble & ~mask];
+    }
+
+    private static String hex(byte[] message, int length) {
+        byte[] hex = new byte[length * 2];
+        for (int i = 0; i < length; i++) {
+            hex[i * 2] = HEX_DIGITS[(message[i] & 0xFF) >>> 4];
+            hex[i * 2 + 1] = HEX_DIGITS[message[i] & 0x0F];
+        }
+        return new String(hex, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * A growable message buffer
+     */
+    private static final class Bytes {
+        byte[] data;
+        int length;
+
+        Bytes(int capacity) {
+            data = new byte[capacity];
+        }
+
+        void set(byte[] source, int sourceLength) {
+            ensure(sourceLength);
+            System.arraycopy(source, 0, data, 0, sourceLength);
+            length = sourceLength;
+        }
+
+        /**
+         * Replaces data[start, end) with the replacement, moving everything after it
+         */
+        void replace(int start, int end, byte[] replacement) {
+            int newLength = length - (end - start) + replacement.length;
+            ensure(newLength);
+            System.arraycopy(data, end, data, start + replacement.length, length - end);
+            System.arraycopy(replacement, 0, data, start, replacement.length);
+            length = newLength;
+        }
+
+        private void ensure(int capacity) {
+            if (capacity > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, capacity));
+            }
+        }
+    }
+
+    private final class Worker {
+        private final SplittableRandom random;
+        private final Results results;
+        private final Plan plan = new Plan();
+        private final Bytes message = new Bytes(baseline.length * 2);
+        private long cases;
+        private long accepted;
+        private long rejected;
+        private long noResponse;
+
+        Worker(SplittableRandom random, Results results) {
+            this.random = random;
+            this.results = results;
+        }
+
+        void run(AtomicLong nextCase, long maxCases, long deadline) {
+            try {
+                long first;
+                while ((first = nextCase.getAndAdd(BATCH)) < maxCases && System.nanoTime() - deadline < 0) {
+                    for (long c = first; c < Math.min(first + BATCH, maxCases); c++) {
+                        runCase();
+                    }
+                }
+            } finally {
+                results.cases.add(cases);
+                results.accepted.add(accepted);
+                results.rejected.add(rejected);
+                results.noResponse.add(noResponse);
+            }
+        }
+
+        private void runCase() {
+            plan(random, plan);
+            apply(plan, message);
+            cases++;
+            Verdict verdict = target.test(message.data, message.length);
+            if (verdict == Verdict.REJECTED) {
+                rejected++;
+            } else if (verdict == Verdict.NO_RESPONSE) {
+                noResponse++;
+            } else if (verdict == Verdict.ACCEPTED) {
+                accepted++;
+                String reason = oracleReason(message.data, message.length);
+                if (reason != null) {
+                    failed(verdict, reason);
+                }
+            } else {
+                failed(verdict, null);
+            }
+        }
+
+        private void failed(Verdict verdict, String oracleReason) {
+            // The mutations that led here differ from case to case; the shrunk case reports the ones that matter
+            String signature = verdict.isCrash() ? "CRASHED " + verdict.signature : 
+                               "ACCEPTED INVALID (" + oracleReason + ")";
+            Failure failure = results.failures.get(signature);
+            if (failure == null) {
+                if (results.distinctFailures.get() >= maxReported) {
+                    results.unreportedFailures.increment();
+                    return;
+                }
+                Failure found = new Failure(signature, verdict, oracleReason);
+                failure = results.failures.putIfAbsent(signature, found);
+                if (failure == null) {
+                    results.distinctFailures.incrementAndGet();
+                    found.count.increment();
+                    shrink(found, plan.copy());
+                    return;
+                }
+            }
+            failure.count.increment();
+        }
+
+        /**
+         * Reduces the failing case to the fewest mutations, fields and bytes that still fail the same way
+         */
+        private void shrink(Failure failure, Plan failing) {
+            int attempts = 0;
+            boolean[] active = new boolean[failing.count];
+            boolean[] removed = new boolean[layout.size()];
+            Arrays.fill(active, true);
+            for (int i = 0; i < failing.count && failing.count > 1; i++) {
+                active[i] = false;
+                apply(failing, active, removed, message);
+                attempts++;
+                if (!failsLike(failure, message.data, message.length)) {
+                    active[i] = true;
+                }
+            }
+            for (int e : fieldElements) {
+                if (!contains(failing, e)) {
+                    removed[e] = true;
+                    apply(failing, active, removed, message);
+                    attempts++;
+                    if (!failsLike(failure, message.data, message.length)) {
+                        removed[e] = false;
+                    }
+                }
+            }
+            apply(failing, active, removed, message);
+            byte[] reproducer = Arrays.copyOf(message.data, message.length);
+
+            for (int chunk = reproducer.length / 2; chunk >= 1 && attempts < MAX_SHRINK_ATTEMPTS; chunk /= 2) {
+                for (int start = 0; start + chunk <= reproducer.length && attempts < MAX_SHRINK_ATTEMPTS; ) {
+                    byte[] candidate = new byte[reproducer.length - chunk];
+                    System.arraycopy(reproducer, 0, candidate, 0, start);
+                    System.arraycopy(reproducer, start + chunk, candidate, start, candidate.length - start);
+                    attempts++;
+                    if (failsLike(failure, candidate, candidate.length)) {
+                        reproducer = candidate;
+                    } else {
+                        start += chunk;
+                    }
+                }
+            }
+            apply(failing, message);
+            failure.originalLength = message.length;
+            failure.mutations = describe(failing, active);
+            failure.keptFields = keptFields(failing, removed);
+            failure.oracleRejection = oracle.violation(reproducer, reproducer.length);
+            Verdict verdict = target.test(reproducer, reproducer.length);
+            if (verdict.isCrash()) {
+                failure.crashDetail = verdict.detail;
+            }
+            failure.reproducer = reproducer;
+        }
+
+        private boolean failsLike(Failure failure, byte[] candidate, int length) {
+            Verdict verdict = target.test(candidate, length);
+            if (failure.crashSignature != null) {
+                return verdict.isCrash() && verdict.signature.equals(failure.crashSignature);
+            }
+            return verdict == Verdict.ACCEPTED && failure.oracleReason.equals(oracleReason(candidate, length));
+        }
+    }
+
+    /**
+     * @return The fields left in the shrunk case besides the mutated ones
+     */
+    private String keptFields(Plan failing, boolean[] removed) {
+        StringBuilder kept = new StringBuilder();
+        for (int e : fieldElements) {
+            if (!removed[e] && !contains(failing, e)) {
+                kept.append(kept.length() > 0 ? ", " : "").append(layout.getKey(e));
+            }
+        }
+        return kept.length() > 0 ? kept.toString() : "none";
+    }
+
+    private String describe(Plan plan, boolean[] active) {
+        StringBuilder description = new StringBuilder();
+        for (int i = plan.count - 1; i >= 0; i--) {
+            if (active == null || active[i]) {
+                if (description.length() > 0) {
+                    description.append(", ");
+                }
+                String key = layout.getKey(plan.elements[i]);
+                description.append(plan.mutations[i].name().toLowerCase()).append(" on ")
+                           .append(Character.isDigit(key.charAt(0)) ? "field " + key : key);
+            }
+        }
+        return description.toString();
+    }
+
+    /**
+     * One kind of failure, told apart by the crash signature or the broken field rule: its count and the
+     * shrunk first case
+     */
+    static final class Failure {
+        final String signature;
+        final String crashSignature;
+        final String oracleReason;
+        final LongAdder count = new LongAdder();
+        // Filled in once shrinking is done; reproducer is written last
+        String mutations;
+        String keptFields;
+        int originalLength;
+        String oracleRejection;
+        String crashDetail;
+        volatile byte[] reproducer;
+
+        Failure(String signature, Verdict verdict, String oracleReason) {
+            this.signature = signature;
+            this.crashSignature = verdict.isCrash() ? verdict.signature : null;
+            this.oracleReason = oracleReason;
+        }
+    }
+
+    /**
+     * Totals of a fuzzing run
+     */
+    final class Results {
+        final LongAdder cases = new LongAdder();
+        final LongAdder accepted = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder noResponse = new LongAdder();
+        final LongAdder unreportedFailures = new LongAdder();
+        final ConcurrentHashMap<String, Failure> failures = new ConcurrentHashMap<>();
+        private final AtomicInteger distinctFailures = new AtomicInteger();
+        long elapsedNanos;
+
+        /**
+         * @return The report, with the shrunk reproducer of every distinct failure
+         */
+        String format(long seed, int threads) {
+            long failed = unreportedFailures.sum();
+            for (Failure failure : failures.values()) {
+                failed += failure.count.sum();
+            }
+            double seconds = elapsedNanos / 1e9;
+            StringBuilder report = new StringBuilder();
+            report.append("ISO8583 Parser Fuzz Test Results\n");
+            report.append("================================\n\n");
+            report.append("Seed: ").append(seed).append(", Threads: ").append(threads).append("\n");
+            report.append("Encoding: ").append(bcd ? "BCD" : "ASCII").append(", Baseline: ").append(baseline.length)
+                  .append(" bytes\n\n");
+
+            List<Failure> sorted = new ArrayList<>(failures.values());
+            sorted.sort((a, b) -> Long.compare(b.count.sum(), a.count.sum()));
+            if (!sorted.isEmpty()) {
+                report.append("Failures\n");
+                for (Failure failure : sorted) {
+                    report.append("  - ").append(failure.signature).append(" (").append(failure.count.sum())
+                          .append(" cases)\n");
+                    report.append("    Shrunk to: ").append(failure.mutations).append(", ")
+                          .append(failure.reproducer.length).append(" of ").append(failure.originalLength)
+                          .append(" bytes\n");
+                    report.append("    Other fields needed: ").append(failure.keptFields).append("\n");
+                    if (failure.crashDetail != null) {
+                        report.append("    Crash: ").append(failure.crashDetail).append("\n");
+                    } else if (failure.oracleRejection != null) {
+                        report.append("    Field rules: ").append(failure.oracleRejection).append("\n");
+                    }
+                    report.append("    Reproducer: ").append(render(failure.reproducer)).append("\n");
+                }
+                if (unreportedFailures.sum() > 0) {
+                    report.append("  ... and ").append(unreportedFailures.sum())
+                          .append(" more failing cases of other kinds (see iso8583.fuzz.maxReported)\n");
+                }
+                report.append("\n");
+            }
+            report.append("Overall Summary\n");
+            report.append("--------------\n");
+            report.append("Cases: ").append(cases.sum()).append("\n");
+            report.append("Rejected: ").append(rejected.sum()).append("\n");
+            report.append("Accepted: ").append(accepted.sum()).append(" (valid according to the field rules: ")
+                  .append(accepted.sum() - failed + crashes()).append(")\n");
+            report.append("Failures: ").append(failed).append(" (").append(sorted.size()).append(" distinct)\n");
+            if (noResponse.sum() > 0) {
+                report.append("No Response: ").append(noResponse.sum()).append("\n");
+            }
+            report.append("Duration: ").append(String.format("%.1f", seconds)).append(" s\n");
+            report.append("Throughput: ").append(String.format("%.0f", seconds > 0 ? cases.sum() / seconds * 60 : 0))
+                  .append(" cases/min\n");
+            return report.toString();
+        }
+
+        private long crashes() {
+            long crashes = 0;
+            for (Failure failure : failures.values()) {
+                if (failure.crashSignature != null) {
+                    crashes += failure.count.sum();
+                }
+            }
+            return crashes;
+        }
+
+        /**
+         * ASCII messages as text with other bytes escaped, BCD messages as hex
+         */
+        private String render(byte[] message) {
+            if (bcd) {
+                return hex(message, message.length);
+            }
+            StringBuilder text = new StringBuilder(message.length + 16);
+            for (byte b : message) {
+                int c = b & 0xFF;
+                if (c >= 0x20 && c < 0x7F && c != '\\') {
+                    text.append((char) c);
+                } else {
+                    text.append(String.format("\\x%02X", c));
+                }
+            }
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package iso8583;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily enumerates test cases that break several fields at once.
+ * For an arity of N, every combination of N distinct fields is taken with every choice of one invalid value
+ * per chosen field, so arity 1 is the single-field suite and arity 2 covers every pair of invalid values
+ * across two fields. Cases are produced one at a time as {@link FieldDataOverlay} views over the shared
+ * valid baseline, so memory stays constant however many cases there are.
+ *
+ * Field combinations are numbered in lexicographic order and the stream splits by ranges of that number,
+ * so a parallel stream spreads the cases across cores without materialising them.
+ */
+public final class MutationGenerator {
+
+    private final Map<String, String> baseline;
+    private final List<String> testCategories;
+    private final int arity;
+    // Packed fields with at least one invalid value, in config order, and their (category, value) choices
+    private final String[] fieldKeys;
+    private final int[][] categories;
+    private final String[][] values;
+    // binomial[n][k] = C(n, k), saturating at Long.MAX_VALUE
+    private final long[][] binomial;
+    private final long fieldCombinations;
+    private final long caseCount;
+
+    /**
+     * @param fieldSpecs The compiled field config
+     * @param baseline The valid field data every case starts from; must not be modified while in use
+     * @param arity Number of fields made invalid in each case
+     */
+    public MutationGenerator(FieldSpecs fieldSpecs, Map<String, String> baseline, int arity) {
+        this.baseline = baseline;
+        this.testCategories = fieldSpecs.getTestCategories();
+        this.arity = arity;
+
+        List<FieldSpec> mutable = new ArrayList<>();
+        for (FieldSpec spec : fieldSpecs.all()) {
+            // An invalid subfield value is not packed, so it would leave the message unchanged
+            if (!IsoMessagePacker.packs(spec)) {
+                continue;
+            }
+            for (int i = 0; i < testCategories.size(); i++) {
+                if (spec.getInvalidValue(i) != null) {
+                    mutable.add(spec);
+                    break;
+                }
+            }
+        }
+        int fieldCount = mutable.size();
+        if (arity < 1 || arity > fieldCount) {
+            throw new IllegalArgumentException("Arity must be between 1 and " + fieldCount + ", got " + arity);
+        }
+
+        fieldKeys = new String[fieldCount];
+        categories = new int[fieldCount][];
+        values = new String[fieldCount][];
+        for (int f = 0; f < fieldCount; f++) {
+            FieldSpec spec = mutable.get(f);
+            List<Integer> fieldCategories = new ArrayList<>();
+            for (int i = 0; i < testCategories.size(); i++) {
+                if (spec.getInvalidValue(i) != null) {
+                    fieldCategories.add(i);
+                }
+            }
+            fieldKeys[f] = spec.getKey();
+            categories[f] = new int[fieldCategories.size()];
+            values[f] = new String[fieldCategories.size()];
+            for (int v = 0; v < categories[f].length; v++) {
+                categories[f][v] = fieldCategories.get(v);
+                values[f][v] = spec.getInvalidValue(categories[f][v]);
+            }
+        }
+
+        binomial = binomialTable(fieldCount, arity);
+        fieldCombinations = binomial[fieldCount][arity];
+        caseCount = countCases();
+        if (fieldCombinations == Long.MAX_VALUE || caseCount == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many combinations for arity " + arity);
+        }
+    }
+
+    /**
+     * @return Number of fields made invalid in each case
+     */
+    public int getArity() {
+        return arity;
+    }
+
+    /**
+     * @return Total number of cases the generator produces
+     */
+    public long size() {
+        return caseCount;
+    }
+
+    /**
+     * @return All cases in order; call {@code parallel()} on it to spread them across cores
+     */
+    public Stream<Mutation> stream() {
+        return StreamSupport.stream(new CombinationSpliterator(0, fieldCombinations), false);
+    }
+
+    /**
+     * @return All cases in order, produced on demand
+     */
+    public Iterator<Mutation> iterator() {
+        return Spliterators.iterator(new CombinationSpliterator(0, fieldCombinations));
+    }
+
+    /**
+     * Number of cases, i.e. the sum over field combinations of the product of their value counts.
+     * Computed as the elementary symmetric polynomial of the per-field counts rather than by enumeration.
+     */
+    private long countCases() {
+        long[] sums = new long[arity + 1];
+        sums[0] = 1;
+        for (String[] fieldValues : values) {
+            for (int k = arity; k >= 1; k--) {
+                sums[k] = saturatingAdd(sums[k], saturatingMultiply(sums[k - 1], fieldValues.length));
+            }
+        }
+        return sums[arity];
+    }
+
+    private static long[][] binomialTable(int n, int k) {
+        long[][] table = new long[n + 1][k + 1];
+        for (int i = 0; i <= n; i++) {
+            table[i][0] = 1;
+            for (int j = 1; j <= Math.min(i, k); j++) {
+                table[i][j] = saturatingAdd(table[i - 1][j - 1], j <= i - 1 ? table[i - 1][j] : 0);
+            }
+        }
+        return table;
+    }
+
+    private static long saturatingAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long saturatingMultiply(long a, long b) {
+        return b != 0 && a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+    }
+
+    /**
+     * One generated case: the fields made invalid and their values
+     */
+    public final class Mutation {
+        private final String[] keys;
+        private final int[] categoryIndexes;
+        private final String[] invalidValues;
+
+        private Mutation(String[] keys, int[] categoryIndexes, String[] invalidValues) {
+            this.keys = keys;
+            this.categoryIndexes = categoryIndexes;
+            this.invalidValues = invalidValues;
+        }
+
+        /**
+         * @return The baseline with this case's fields replaced, as a view rather than a copy
+         */
+        public Map<String, String> fieldData() {
+            return new FieldDataOverlay(baseline, keys, invalidValues);
+        }
+
+        /**
+         * @return Keys of the fields made invalid, in config order; do not modify
+         */
+        public String[] getKeys() {
+            return keys;
+        }
+
+        /**
+         * @return The invalid values, aligned with getKeys(); do not modify
+         */
+        public String[] getValues() {
+            return invalidValues;
+        }
+
+        /**
+         * @return The test category of the i-th invalid value, e.g. "invalid_type_value"
+         */
+        public String getCategory(int i) {
+            return testCategories.get(categoryIndexes[i]);
+        }
+
+        /**
+         * @return e.g. "2:invalid_type + 7:invalid_date"
+         */
+        public String describe() {
+            StringBuilder description = new StringBuilder();
+            for (int i = 0; i < keys.length; i++) {
+                if (i > 0) {
+                    description.append(" + ");
+                }
+                description.append(keys[i]).append(':').append(getCategory(i).replace("_value", ""));
+            }
+            return description.toString();
+        }
+    }
+
+    /**
+     * Walks the field combinations with ranks in [rank, end), and for each one every choice of values.
+     * Splitting hands off the upper half of the remaining ranks; the combination being walked stays here.
+     */
+    private final class CombinationSpliterator implements Spliterator<Mutation> {
+        private long rank;
+        private long end;
+        // Current field combination (indexes into fieldKeys) and value choice per field; null until first use
+        private int[] combination;
+        private int[] choice;
+
+        CombinationSpliterator(long rank, long end) {
+            this.rank = rank;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Mutation> action) {
+            if (rank >= end) {
+                return false;
+            }
+            if (combination == null) {
+                combination = unrank(rank);
+                choice = new int[arity];
+            }
+
+            String[] keys = new String[arity];
+            int[] categoryIndexes = new int[arity];
+            String[] invalidValues = new String[arity];
+            for (int i = 0; i < arity; i++) {
+                int field = combination[i];
+                keys[i] = fieldKeys[field];
+                categoryIndexes[i] = categories[field][choice[i]];
+                invalidValues[i] = values[field][choice[i]];
+            }
+
+            // Next value choice, or the next field combination once every choice has been produced
+            int i = arity - 1;
+            while (i >= 0 && ++choice[i] == values[combination[i]].length) {
+                choice[i] = 0;
+                i--;
+            }
+            if (i < 0 && ++rank < end) {
+                nextCombination(combination);
+            }
+
+            action.accept(new Mutation(keys, categoryIndexes, invalidValues));
+            return true;
+        }
+
+        @Override
+        public Spliterator<Mutation> trySplit() {
+            // Keep the current rank, which may be part way through its value choices
+            long remaining = end - rank - 1;
+            if (remaining < 1) {
+                return null;
+            }
+            long middle = rank + 1 + remaining / 2;
+            CombinationSpliterator upper = new CombinationSpliterator(middle, end);
+            end = middle;
+            return upper;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fieldCombinations == 0 ? 0 :
+                   saturatingMultiply(end - rank, Math.max(1, caseCount / fieldCombinations));
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+
+        /**
+         * @return The field combination with the given lexicographic rank
+         */
+        private int[] unrank(long target) {
+            int fieldCount = fieldKeys.length;
+            int[] result = new int[arity];
+            int next = 0;
+            for (int i = 0; i < arity; i++) {
+                for (int field = next; ; field++) {
+                    long withField = binomial[fieldCount - field - 1][arity - i - 1];
+                    if (target < withField) {
+                        result[i] = field;
+                        next = field + 1;
+                        break;
+                    }
+                    target -= withField;
+                }
+            }
+            return result;
+        }
+
+        private void nextCombination(int[] current) {
+            int fieldCount = fieldKeys.length;
+            int i = arity - 1;
+            while (current[i] == fieldCount - arity + i) {
+                i--;
+            }
+            current[i]++;
+            for (int j = i + 1; j < arity; j++) {
+                current[j] = current[j - 1] + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package iso8583;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HTTP transport for the ISO8583 parser service.
+ * A single HttpClient is shared by every request, so connections are pooled and kept alive
+ * between messages (and multiplexed over one socket when HTTP/2 is enabled).
+ */
+public class ParserHttpClient implements ParserTransport {
+
+    private final HttpClient client;
+    private final URI parserUri;
+    private final Duration requestTimeout;
+
+    /**
+     * @param parserUrl The parser endpoint, e.g. http://host:port/iso8583/parse
+     * @param http2 Whether to negotiate HTTP/2 (falls back to HTTP/1.1 if the server does not support it)
+     * @param connectTimeout Timeout for establishing a new connection
+     * @param requestTimeout Timeout for a single request, from sending to receiving the response
+     */
+    public ParserHttpClient(String parserUrl, boolean http2, Duration connectTimeout, Duration requestTimeout) {
+        this.parserUri = URI.create(parserUrl);
+        this.requestTimeout = requestTimeout;
+        this.client = HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+    }
+
+    /**
+     * Sends an ISO8583 message and waits for the response
+     * @param isoMessage The ISO8583 message to send
+     * @return The JSON response from the parser
+     */
+    @Override
+    public String send(String isoMessage) throws IOException {
+        try {
+            HttpResponse<String> response = client.send(buildRequest(isoMessage),
+                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            return checkStatus(response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for parser response");
+        }
+    }
+
+    /**
+     * Sends an ISO8583 message without blocking the caller
+     * @param isoMessage The ISO8583 message to send
+     * @return A future completed with the JSON response from the parser
+     */
+    @Override
+    public CompletableFuture<String> sendAsync(String isoMessage) {
+        return client.sendAsync(buildRequest(isoMessage), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .thenApply(response -> {
+                    try {
+                        return checkStatus(response);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Sends several messages in one request, as a JSON array of the single message requests
+     * @param isoMessages The ISO8583 messages to send
+     * @return A future completed with the response body, a JSON array of the responses in message order
+     */
+    public CompletableFuture<String> sendBatchAsync(List<String> isoMessages) {
+        StringBuilder json = new StringBuilder(isoMessages.size() * 256).append('[');
+        for (String isoMessage : isoMessages) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(buildRequestJson(isoMessage));
+        }
+        json.append(']');
+        return client.sendAsync(buildRequestFromJson(json.toString()), 
+                                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .thenApply(response -> {
+                    try {
+                        return checkStatus(response);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private HttpRequest buildRequest(String isoMessage) {
+        return buildRequestFromJson(buildRequestJson(isoMessage));
+    }
+
+    private HttpRequest buildRequestFromJson(String json) {
+        return HttpRequest.newBuilder(parserUri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    static String buildRequestJson(String isoMessage) {
+        // Invalid test values may contain quotes and backslashes, so the message has to be escaped
+        char[] escaped = JsonStringEncoder.getInstance().quoteAsString(isoMessage);
+        StringBuilder json = new StringBuilder(escaped.length + 18);
+        json.append("{\"isoMessage\":\"").append(escaped).append("\"}");
+        return json.toString();
+    }
+
+    private static String checkStatus(HttpResponse<String> response) throws IOException {
+        // Same behaviour as HttpURLConnection: error statuses surface as an IOException
+        if (response.statusCode() >= 400) {
+            throw new StatusException(response.statusCode(), "Server returned HTTP response code: " +
+                                      response.statusCode() + " for URL: " + response.uri());
+        }
+        return response.body();
+    }
+
+    /**
+     * The parser service answered with an error status
+     */
+    public static class StatusException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
+        public StatusException(int statusCode, String message) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * @return Whether the status comes from the way to the parser (overload, gateway, unavailable)
+         *         rather than from the parser handling the message
+         */
+        public boolean isTransient() {
+            return statusCode == 429 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package iso8583;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming validation of parser responses.
+ * The response array is read token by token with a shared JsonFactory (no tree is built), and each
+ * dataElementId/value pair is checked against an {@link Expectations} table prepared once per test
+ * case, so the per-response work is a lookup and a character comparison.
+ */
+public final class ParserResponseValidator {
+
+    // JsonFactory is thread-safe and meant to be shared; parsers created from it are not
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ThreadLocal<Element> ELEMENTS = ThreadLocal.withInitial(Element::new);
+    private static final boolean VERBOSE = Verbose.VERBOSE;
+
+    private ParserResponseValidator() {
+    }
+
+    /**
+     * Validates the parser response against the expected values
+     * @param responseJson The JSON response from the parser, an array of {dataElementId, value} objects
+     * @param expected The expected values for the message that was sent
+     * @return True if validation passes, false otherwise
+     */
+    public static boolean validate(String responseJson, Expectations expected) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(responseJson)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                if (VERBOSE) {
+                    System.err.println("Unexpected response format: " + responseJson);
+                }
+                return false;
+            }
+
+            Element element = ELEMENTS.get();
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                element.reset();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    // Field names are canonicalized by the factory, so this does not allocate
+                    String name = parser.currentName();
+                    parser.nextToken();
+                    if (name.equals("dataElementId")) {
+                        element.hasId = true;
+                        element.idLength = copyText(parser, element, true);
+                    } else if (name.equals("value")) {
+                        element.hasValue = true;
+                        element.valueLength = copyText(parser, element, false);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+
+                if (!element.hasId || !element.hasValue) {
+                    if (VERBOSE) {
+                        System.err.println("Response element without dataElementId or value: " + responseJson);
+                    }
+                    return false;
+                }
+                if (!expected.matches(element)) {
+                    return false;
+                }
+            }
+
+            if (token != JsonToken.END_ARRAY) {
+                if (VERBOSE) {
+                    System.err.println("Unexpected response format: " + responseJson);
+                }
+                return false;
+            }
+            // All fields validated successfully
+            return true;
+        }
+    }
+
+    private static int copyText(JsonParser parser, Element element, boolean id) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            // Matches JsonNode.asText() for containers
+            parser.skipChildren();
+            return 0;
+        }
+        int length = parser.getTextLength();
+        char[] target = id ? element.id : element.value;
+        if (target.length < length) {
+            target = new char[Math.max(length, target.length * 2)];
+            if (id) {
+                element.id = target;
+            } else {
+                element.value = target;
+            }
+        }
+        System.arraycopy(parser.getTextCharacters(), parser.getTextOffset(), target, 0, length);
+        return length;
+    }
+
+    /**
+     * Reusable per-thread holder for the dataElementId and value of one response element
+     */
+    private static final class Element {
+        char[] id = new char[16];
+        int idLength;
+        boolean hasId;
+        char[] value = new char[256];
+        int valueLength;
+        boolean hasValue;
+
+        void reset() {
+            hasId = false;
+            hasValue = false;
+            idLength = 0;
+            valueLength = 0;
+        }
+
+        /**
+         * @return The numeric dataElementId, or -1 if it is not a plain field number
+         */
+        int fieldNumber() {
+            if (idLength == 0 || idLength > 3) {
+                return -1;
+            }
+            int number = 0;
+            for (int i = 0; i < idLength; i++) {
+                char c = id[i];
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                number = number * 10 + (c - '0');
+            }
+            return number <= FieldSpecs.MAX_FIELD_NUMBER ? number : -1;
+        }
+
+        boolean valueEquals(String expected) {
+            if (expected.length() != valueLength) {
+                return false;
+            }
+            for (int i = 0; i < valueLength; i++) {
+                if (expected.charAt(i) != value[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * What the parser should return for each field of one sent message.
+     * Built once per test case; {@link #with(String, String)} derives the table for a message that
+     * differs from this one in a single field, {@link #with(String[], String[])} for several.
+     */
+    public static final class Expectations {
+
+        private final FieldSpecs fieldSpecs;
+        private final Expected[] byNumber;
+        // Fields whose key is not a plain number, e.g. "MTI" or "63.1"
+        private final Map<String, Expected> byKey;
+
+        private Expectations(FieldSpecs fieldSpecs, Expected[] byNumber, Map<String, Expected> byKey) {
+            this.fieldSpecs = fieldSpecs;
+            this.byNumber = byNumber;
+            this.byKey = byKey;
+        }
+
+        /**
+         * @param fieldSpecs The compiled field config
+         * @param fieldData The field data of the message that was sent
+         */
+        public static Expectations from(FieldSpecs fieldSpecs, Map<String, String> fieldData) {
+            Expectations expectations = new Expectations(fieldSpecs, new Expected[FieldSpecs.MAX_FIELD_NUMBER + 1],
+                                                         new HashMap<>());
+            for (Map.Entry<String, String> entry : fieldData.entrySet()) {
+                FieldSpec spec = fieldSpecs.byKey(entry.getKey());
+                if (spec != null && entry.getValue() != null) {
+                    expectations.put(entry.getKey(), new Expected(spec, entry.getValue()));
+                }
+            }
+            return expectations;
+        }
+
+        /**
+         * @return A copy of these expectations with one field's sent value replaced
+         */
+        public Expectations with(String key, String value) {
+            return with(new String[] {key}, new String[] {value});
+        }
+
+        /**
+         * @return A copy of these expectations with several fields' sent values replaced, made in one copy
+         */
+        public Expectations with(String[] keys, String[] values) {
+            Map<String, Expected> keyed = byKey;
+            for (String key : keys) {
+                if (!isNumericKey(key) && fieldSpecs.byKey(key) != null) {
+                    keyed = new HashMap<>(byKey);
+                    break;
+                }
+            }
+            Expectations copy = new Expectations(fieldSpecs, byNumber.clone(), keyed);
+            for (int i = 0; i < keys.length; i++) {
+                FieldSpec spec = fieldSpecs.byKey(keys[i]);
+                if (spec != null) {
+                    copy.put(keys[i], values[i] != null ? new Expected(spec, values[i]) : null);
+                }
+            }
+            return copy;
+        }
+
+        private void put(String key, Expected expected) {
+            if (isNumericKey(key)) {
+                byNumber[Integer.parseInt(key)] = expected;
+            } else if (expected != null) {
+                byKey.put(key, expected);
+            } else {
+                byKey.remove(key);
+            }
+        }
+
+        private boolean matches(Element element) {
+            int fieldNumber = element.fieldNumber();
+            Expected expected = fieldNumber >= 0 ? byNumber[fieldNumber] :
+                                byKey.get(new String(element.id, 0, element.idLength));
+            if (expected == null) {
+                // Not part of the sent data (e.g. a bitmap computed by the packer) or not in the config
+                return true;
+            }
+            if (expected.invalidTest) {
+                // If we're testing an invalid value and the parser accepted it, that's a failure
+                return false;
+            }
+            if (element.valueEquals(expected.value) ||
+                (expected.alternative != null && element.valueEquals(expected.alternative))) {
+                return true;
+            }
+            if (VERBOSE) {
+                System.err.println("Field " + expected.key + " value mismatch: expected " + expected.value +
+                                   (expected.alternative != null ? " or " + expected.alternative : "") +
+                                   ", got " + new String(element.value, 0, element.valueLength));
+            }
+            return false;
+        }
+
+        private static boolean isNumericKey(String key) {
+            int length = key.length();
+            if (length == 0 || length > 3) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (key.charAt(i) < '0' || key.charAt(i) > '9') {
+                    return false;
+                }
+            }
+            return Integer.parseInt(key) <= FieldSpecs.MAX_FIELD_NUMBER;
+        }
+    }
+
+    private static final class Expected {
+        final String key;
+        final boolean invalidTest;
+        final String value;
+        final String alternative;
+
+        Expected(FieldSpec spec, String sentValue) {
+            this.key = spec.getKey();
+            this.invalidTest = spec.isInvalidTestValue(sentValue);
+            if (spec.isVariable() && spec.getValidExampleRaw() != null && spec.getValidExample() != null) {
+                // For variable length fields, the parser response may contain either the raw or formatted value
+                this.value = spec.getValidExampleRaw();
+                this.alternative = spec.getValidExample();
+            } else {
+                this.value = sentValue;
+                this.alternative = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package iso8583;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers a built ISO8583 message to a parser and returns the parser's JSON response.
+ * Implementations: {@link ParserHttpClient} for the deployed service, {@link InProcessParserTransport}
+ * for a parser library called directly, and {@link LoopbackParserTransport} for the in-process parser
+ * behind a local HTTP stub. Select one with -Diso8583.transport=http|inprocess|loopback.
+ */
+public interface ParserTransport extends AutoCloseable {
+
+    /**
+     * Sends an ISO8583 message and waits for the response
+     * @param isoMessage The ISO8583 message as sent on the wire (hex for BCD encoding)
+     * @return The JSON response from the parser
+     */
+    String send(String isoMessage) throws IOException;
+
+    /**
+     * Sends an ISO8583 message without blocking the caller.
+     * The default sends on the calling thread, which suits transports that answer in memory.
+     * @param isoMessage The ISO8583 message as sent on the wire (hex for BCD encoding)
+     * @return A future completed with the JSON response from the parser
+     */
+    default CompletableFuture<String> sendAsync(String isoMessage) {
+        try {
+            return CompletableFuture.completedFuture(send(isoMessage));
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Releases anything the transport started, such as a local server
+     */
+    @Override
+    default void close() {
+    }
+}
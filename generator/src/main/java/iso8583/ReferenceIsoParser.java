@@ -0,0 +1,192 @@
+package iso8583;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Built-in in-process parser: unpacks a message the way {@link IsoMessagePacker} packs it and checks
+ * every element against the field config's validation rules.
+ * It stands in for the real parser library when none is on the classpath, so the test matrix can run
+ * entirely in memory; like the service, it rejects malformed messages and invalid test values.
+ */
+public final class ReferenceIsoParser implements IsoParser {
+
+    /**
+     * Registered in META-INF/services as the "reference" provider
+     */
+    public static final class Provider implements IsoParser.Provider {
+        public static final String NAME = "reference";
+
+        @Override
+        public String name() {
+            return NAME;
+        }
+
+        @Override
+        public IsoParser create(FieldSpecs fieldSpecs, IsoMessagePacker.Encoding encoding) {
+            return new ReferenceIsoParser(fieldSpecs, encoding);
+        }
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final FieldSpecs fieldSpecs;
+    private final IsoMessagePacker.Encoding encoding;
+
+    public ReferenceIsoParser(FieldSpecs fieldSpecs, IsoMessagePacker.Encoding encoding) {
+        this.fieldSpecs = fieldSpecs;
+        this.encoding = encoding;
+    }
+
+    @Override
+    public Map<String, String> parse(ByteBuffer message) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        String element = "MTI";
+        try {
+            fields.put(element, readElement(message, 4, FieldSpec.Type.NUMERIC));
+            element = "PrimaryBitmap";
+            long primary = readBitmap(message);
+            long secondary = 0;
+            if (primary < 0) {
+                // Bit 1 flags the secondary bitmap
+                element = "SecondaryBitmap";
+                secondary = readBitmap(message);
+            }
+
+            for (int fieldNumber = 2; fieldNumber <= FieldSpecs.MAX_FIELD_NUMBER; fieldNumber++) {
+                long bitmap = fieldNumber <= 64 ? primary : secondary;
+                if ((bitmap >>> (fieldNumber <= 64 ? 64 - fieldNumber : 128 - fieldNumber) & 1) == 0) {
+                    continue;
+                }
+                element = Integer.toString(fieldNumber);
+                FieldSpec spec = fieldSpecs.byNumber(fieldNumber);
+                if (spec == null || (!spec.isVariable() && spec.getLength() < 0)) {
+                    throw new IllegalArgumentException("Field " + fieldNumber + " is present but has no usable definition");
+                }
+                int length = spec.isVariable() ? readLengthPrefix(message, spec.getLengthPrefixDigits()) :
+                             spec.getLength();
+                fields.put(element, readElement(message, length, spec.getType()));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Message ends inside " + element);
+        }
+        if (message.hasRemaining()) {
+            throw new IllegalArgumentException(message.remaining() + " bytes left after the last field");
+        }
+
+        String invalidField = firstInvalidField(fieldSpecs, fields);
+        if (invalidField != null) {
+            throw new IllegalArgumentException("Field " + invalidField + " failed validation: " + fields.get(invalidField));
+        }
+        return fields;
+    }
+
+    /**
+     * Checks field data against the compiled field specs: an invalid test value fails, and any
+     * other value is checked against the field's format rules. The config's own valid examples are
+     * accepted even where they break those rules (e.g. field 55), as the baseline message is built from them.
+     * @return The key of the first field that fails, or null if all pass
+     */
+    static String firstInvalidField(FieldSpecs fieldSpecs, Map<String, String> fieldData) {
+        for (Map.Entry<String, String> entry : fieldData.entrySet()) {
+            FieldSpec spec = fieldSpecs.byKey(entry.getKey());
+            if (spec == null) continue;
+
+            String value = entry.getValue();
+            if (spec.isInvalidTestValue(value) || (!spec.isValid(value) && !spec.isConfiguredValidValue(value))) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private long readBitmap(ByteBuffer message) {
+        if (encoding == IsoMessagePacker.Encoding.BCD) {
+            return message.getLong();
+        }
+        long bitmap = 0;
+        for (int i = 0; i < 16; i++) {
+            bitmap = bitmap << 4 | nibble(message.get());
+        }
+        return bitmap;
+    }
+
+    private int readLengthPrefix(ByteBuffer message, int digits) {
+        if (encoding == IsoMessagePacker.Encoding.ASCII) {
+            int length = 0;
+            for (int i = 0; i < digits; i++) {
+                length = length * 10 + digit(message.get());
+            }
+            return length;
+        }
+        int length = digits == 3 ? bcd(message.get() & 0xFF) : 0;
+        return length * 100 + bcd(message.get() & 0xFF);
+    }
+
+    private String readElement(ByteBuffer message, int length, FieldSpec.Type type) {
+        if (encoding == IsoMessagePacker.Encoding.ASCII || type == FieldSpec.Type.ALPHANUMERIC) {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (message.get() & 0xFF);
+            }
+            return new String(chars);
+        }
+
+        char[] chars = new char[length];
+        if (type == FieldSpec.Type.BINARY) {
+            for (int i = 0; i < length; i += 8) {
+                int b = message.get() & 0xFF;
+                for (int bit = 0; bit < 8 && i + bit < length; bit++) {
+                    chars[i + bit] = (b >>> (7 - bit) & 1) == 1 ? '1' : '0';
+                }
+            }
+        } else if (type == FieldSpec.Type.NUMERIC) {
+            // Odd lengths carry a leading zero nibble
+            int i = 0;
+            if ((length & 1) == 1) {
+                chars[i++] = decimalNibble(message.get() & 0xFF);
+            }
+            while (i < length) {
+                int b = message.get() & 0xFF;
+                chars[i++] = decimalNibble(b >>> 4);
+                chars[i++] = decimalNibble(b & 0x0F);
+            }
+        } else {
+            for (int i = 0; i < length; i += 2) {
+                int b = message.get() & 0xFF;
+                chars[i] = HEX_DIGITS[b >>> 4];
+                if (i + 1 < length) {
+                    chars[i + 1] = HEX_DIGITS[b & 0x0F];
+                }
+            }
+        }
+        return new String(chars);
+    }
+
+    private static int digit(byte b) {
+        if (b < '0' || b > '9') {
+            throw new IllegalArgumentException("Non-digit in length prefix: " + (char) (b & 0xFF));
+        }
+        return b - '0';
+    }
+
+    private static int bcd(int b) {
+        return (decimalNibble(b >>> 4) - '0') * 10 + decimalNibble(b & 0x0F) - '0';
+    }
+
+    private static char decimalNibble(int nibble) {
+        if (nibble > 9) {
+            throw new IllegalArgumentException("Invalid BCD digit: " + Integer.toHexString(nibble));
+        }
+        return (char) ('0' + nibble);
+    }
+
+    private static int nibble(byte b) {
+        if (b >= '0' && b <= '9') return b - '0';
+        if (b >= 'A' && b <= 'F') return b - 'A' + 10;
+        if (b >= 'a' && b <= 'f') return b - 'a' + 10;
+        throw new IllegalArgumentException("Non-hex character in bitmap: " + (char) (b & 0xFF));
+    }
+}
@@ -0,0 +1,163 @@
+package iso8583;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps the configured transport with backpressure and failure handling for synchronous sends:
+ * an optional {@link AdaptiveConcurrencyLimiter} on the number of messages in flight, bounded retries with
+ * exponential backoff for transport failures, and a {@link CircuitBreaker} that fails sends fast while the
+ * parser is unreachable. A send that still gets no answer throws {@link TransportException}.
+ *
+ * A response, including an HTTP error status from the parser itself, is never retried: resending a message
+ * the parser has answered could only hide a rejection.
+ * Asynchronous sends (load mode) go straight to the wrapped transport, as the load test sends at a fixed
+ * rate on purpose and reports timeouts and errors itself.
+ */
+final class ResilientParserTransport implements ParserTransport {
+
+    private final ParserTransport delegate;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final CircuitBreaker circuitBreaker;
+    private final int maxRetries;
+    private final long retryBackoffMillis;
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder failedSends = new LongAdder();
+    private final LongAdder circuitOpenSends = new LongAdder();
+
+    /**
+     * @param limiter Limiter on messages in flight, or null for no limit beyond the number of threads
+     * @param maxRetries Resends after a transport failure, 0 to fail on the first one
+     * @param retryBackoffMillis Wait before the first resend; doubles for each further one
+     */
+    ResilientParserTransport(ParserTransport delegate, AdaptiveConcurrencyLimiter limiter,
+                             CircuitBreaker circuitBreaker, int maxRetries, long retryBackoffMillis) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+        this.circuitBreaker = circuitBreaker;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    @Override
+    public String send(String isoMessage) throws IOException {
+        IOException lastFailure = null;
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (attempt > 0) {
+                retries.increment();
+                backOff(attempt);
+            }
+            if (!circuitBreaker.allowRequest()) {
+                circuitOpenSends.increment();
+                failedSends.increment();
+                throw new TransportException("Circuit breaker open after " + circuitBreaker.getConsecutiveFailures() +
+                                             " consecutive transport failures", lastFailure);
+            }
+            try {
+                String response = sendOnce(isoMessage);
+                circuitBreaker.onSuccess();
+                return response;
+            } catch (InterruptedIOException e) {
+                Thread.currentThread().interrupt();
+                circuitBreaker.onIgnored();
+                failedSends.increment();
+                throw new TransportException("Interrupted while sending to the parser", e);
+            } catch (ParserHttpClient.StatusException e) {
+                if (!e.isTransient()) {
+                    // The parser answered, so this is its response to the message
+                    circuitBreaker.onSuccess();
+                    throw e;
+                }
+                circuitBreaker.onFailure();
+                lastFailure = e;
+            } catch (IOException e) {
+                circuitBreaker.onFailure();
+                lastFailure = e;
+            } catch (RuntimeException e) {
+                circuitBreaker.onIgnored();
+                throw e;
+            }
+        }
+        failedSends.increment();
+        throw new TransportException("No response from the parser after " + (maxRetries + 1) + " attempts: " +
+                                     lastFailure.getMessage(), lastFailure);
+    }
+
+    private String sendOnce(String isoMessage) throws IOException {
+        if (limiter == null) {
+            return delegate.send(isoMessage);
+        }
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free send slot");
+        }
+        long start = System.nanoTime();
+        try {
+            String response = delegate.send(isoMessage);
+            limiter.onResponse(System.nanoTime() - start);
+            return response;
+        } catch (ParserHttpClient.StatusException e) {
+            if (e.isTransient()) {
+                limiter.onDropped();
+            } else {
+                limiter.onResponse(System.nanoTime() - start);
+            }
+            throw e;
+        } catch (InterruptedIOException e) {
+            limiter.onIgnored();
+            throw e;
+        } catch (IOException e) {
+            limiter.onDropped();
+            throw e;
+        } catch (RuntimeException e) {
+            limiter.onIgnored();
+            throw e;
+        }
+    }
+
+    private void backOff(int attempt) throws TransportException {
+        long delay = retryBackoffMillis << Math.min(attempt - 1, 16);
+        // Jitter keeps threads that failed together from retrying together
+        delay += ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedSends.increment();
+            throw new TransportException("Interrupted while waiting to retry a send", e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> sendAsync(String isoMessage) {
+        return delegate.sendAsync(isoMessage);
+    }
+
+    /**
+     * @return One line on retries, failed sends and the concurrency limit, or null if there is nothing to report
+     */
+    String summary() {
+        if (retries.sum() == 0 && failedSends.sum() == 0 && limiter == null) {
+            return null;
+        }
+        StringBuilder summary = new StringBuilder("Transport: ")
+                .append(retries.sum()).append(" retries, ")
+                .append(failedSends.sum()).append(" sends without a response (")
+                .append(circuitOpenSends.sum()).append(" refused while the circuit breaker was open, opened ")
+                .append(circuitBreaker.getTimesOpened()).append(" times)");
+        if (limiter != null) {
+            summary.append(", adaptive concurrency limit ").append(limiter.getLimit());
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
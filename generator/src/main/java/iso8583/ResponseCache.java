@@ -0,0 +1,108 @@
+package iso8583;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-run cache of parser responses, keyed on the built message.
+ * The first caller for a message sends it; callers with an identical message, including ones that
+ * arrive while that send is still in flight, wait on the same future instead of sending again.
+ * Failed sends are not cached, so a later identical message is retried. Once the cache holds
+ * maxEntries messages, new ones are sent without being cached, so the messages that repeat in a
+ * run (the all-valid one above all) should be the first ones sent through it.
+ *
+ * Only use this for a stateless parser: a cached response is assumed to be what the parser
+ * would return for the same message at any point in the run.
+ */
+public class ResponseCache {
+
+    /**
+     * Sends a message to the parser and returns its response
+     */
+    public interface Sender {
+        String send(String isoMessage) throws IOException;
+    }
+
+    static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final ConcurrentHashMap<String, CompletableFuture<String>> responses = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder savedSends = new LongAdder();
+
+    public ResponseCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries Most messages kept; concurrent first sends may go slightly over it
+     */
+    public ResponseCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the parser response for the message, sending it only if no identical message
+     * has been sent (or is being sent) in this run
+     */
+    public String send(String isoMessage, Sender sender) throws IOException {
+        requests.increment();
+        CompletableFuture<String> existing = responses.get(isoMessage);
+        if (existing == null) {
+            if (responses.size() >= maxEntries) {
+                return sender.send(isoMessage);
+            }
+            CompletableFuture<String> pending = new CompletableFuture<>();
+            existing = responses.putIfAbsent(isoMessage, pending);
+            if (existing == null) {
+                return sendFirst(isoMessage, sender, pending);
+            }
+        }
+        savedSends.increment();
+        return await(existing);
+    }
+
+    private String sendFirst(String isoMessage, Sender sender, CompletableFuture<String> pending) throws IOException {
+        try {
+            String response = sender.send(isoMessage);
+            pending.complete(response);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            // Let waiting callers see the failure, but don't keep it for later ones
+            responses.remove(isoMessage, pending);
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return Number of sends requested through the cache
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return Number of requested sends answered from the cache instead of the parser
+     */
+    public long getSavedSends() {
+        return savedSends.sum();
+    }
+
+    private static String await(CompletableFuture<String> response) throws IOException {
+        try {
+            return response.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for an identical in-flight send", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Identical in-flight send failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
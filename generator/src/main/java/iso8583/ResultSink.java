@@ -0,0 +1,88 @@
+package iso8583;
+
+import java.io.IOException;
+
+/**
+ * Receives test results as they finish, in config order, and streams them to a report.
+ * Events arrive as: validBaseline, then per field fieldStarted, caseFinished for each of its categories
+ * and fieldFinished, then finish. Implementations keep at most one field's results in memory.
+ */
+public interface ResultSink extends AutoCloseable {
+
+    void validBaseline(boolean passed) throws IOException;
+
+    void fieldStarted(String fieldNumber, String name) throws IOException;
+
+    void caseFinished(CaseResult result) throws IOException;
+
+    void fieldFinished() throws IOException;
+
+    /**
+     * @param totalTests Tests with a parser result; sends that got no response are only in transportErrors,
+     *                   and messages that could not be built only in notSent
+     * @param cacheRequests Sends requested through the response cache, or -1 if caching was off
+     * @param cacheSavedSends Of those, the ones answered from the cache
+     */
+    void finish(int totalTests, int passedTests, int transportErrors, int notSent, long cacheRequests, 
+                long cacheSavedSends) throws IOException;
+
+    /**
+     * Writes out anything buffered so far, so it survives the process dying
+     */
+    void flush() throws IOException;
+
+    @Override
+    void close() throws IOException;
+
+    /**
+     * Result of one invalid scenario for a field and its recovery send
+     */
+    final class CaseResult {
+        final String fieldNumber;
+        final String fieldName;
+        // Test category without the "_value" suffix, e.g. "invalid_type"
+        final String category;
+        final String description;
+        // The parser rejected the invalid message
+        final boolean passed;
+        // The parser accepted the valid message sent afterwards
+        final boolean recovered;
+        // The invalid or the recovery message got no response from the parser, so that test has no result
+        final boolean transportError;
+        final boolean recoveryTransportError;
+        // The invalid or the recovery value could not be packed (not representable in the wire encoding, or
+        // a subfield), so the message was never sent and that test has no result either
+        final boolean notSent;
+        final boolean recoveryNotSent;
+
+        CaseResult(String fieldNumber, String fieldName, String category, String description,
+                   boolean passed, boolean recovered, boolean transportError, boolean recoveryTransportError,
+                   boolean notSent, boolean recoveryNotSent) {
+            this.fieldNumber = fieldNumber;
+            this.fieldName = fieldName;
+            this.category = category;
+            this.description = description;
+            this.passed = passed;
+            this.recovered = recovered;
+            this.transportError = transportError;
+            this.recoveryTransportError = recoveryTransportError;
+            this.notSent = notSent;
+            this.recoveryNotSent = recoveryNotSent;
+        }
+
+        /**
+         * @return The number of this case's two tests that have a parser result
+         */
+        int testsWithResult() {
+            return (transportError || notSent ? 0 : 1) + (recoveryTransportError || recoveryNotSent ? 0 : 1);
+        }
+
+        int transportErrors() {
+            return (transportError ? 1 : 0) + (recoveryTransportError ? 1 : 0);
+        }
+
+        int notSentTests() {
+            return (notSent ? 1 : 0) + (recoveryNotSent ? 1 : 0);
+        }
+    }
+}
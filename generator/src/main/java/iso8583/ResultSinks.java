@@ -0,0 +1,123 @@
+package iso8583;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Passes every result event on to the sinks selected with -Diso8583.results.formats
+ */
+final class ResultSinks implements ResultSink {
+
+    private final List<ResultSink> sinks = new ArrayList<>();
+    private final List<String> files = new ArrayList<>();
+
+    /**
+     * Opens a sink for each format in a comma separated list of text, jsonl and junit
+     * @param baseName File name without extension, e.g. "iso8583_parser_test_results"
+     */
+    static ResultSinks open(String formats, String baseName) throws IOException {
+        ResultSinks results = new ResultSinks();
+        try {
+            for (String format : formats.split(",")) {
+                switch (format.trim()) {
+                    case "text":
+                        results.add(baseName + ".txt", TextResultSink::new);
+                        break;
+                    case "jsonl":
+                        results.add(baseName + ".jsonl", JsonlResultSink::new);
+                        break;
+                    case "junit":
+                        results.add(baseName + ".xml", JUnitXmlResultSink::new);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown result format " + format.trim() +
+                                                           ", expected text, jsonl or junit");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            results.close();
+            throw e;
+        }
+        return results;
+    }
+
+    private interface SinkFactory {
+        ResultSink open(Path file) throws IOException;
+    }
+
+    private void add(String file, SinkFactory factory) throws IOException {
+        sinks.add(factory.open(Paths.get(file)));
+        files.add(file);
+    }
+
+    /**
+     * @return The report files being written
+     */
+    List<String> getFiles() {
+        return files;
+    }
+
+    @Override
+    public void validBaseline(boolean passed) throws IOException {
+        for (ResultSink sink : sinks) {
+            sink.validBaseline(passed);
+        }
+    }
+
+    @Override
+    public void fieldStarted(String fieldNumber, String name) throws IOException {
+        for (ResultSink sink : sinks) {
+            sink.fieldStarted(fieldNumber, name);
+        }
+    }
+
+    @Override
+    public void caseFinished(CaseResult result) throws IOException {
+        for (ResultSink sink : sinks) {
+            sink.caseFinished(result);
+        }
+    }
+
+    @Override
+    public void fieldFinished() throws IOException {
+        for (ResultSink sink : sinks) {
+            sink.fieldFinished();
+        }
+    }
+
+    @Override
+    public void finish(int totalTests, int passedTests, int transportErrors, int notSent, long cacheRequests, 
+                       long cacheSavedSends) 
+            throws IOException {
+        for (ResultSink sink : sinks) {
+            sink.finish(totalTests, passedTests, transportErrors, notSent, cacheRequests, cacheSavedSends);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (ResultSink sink : sinks) {
+            sink.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (ResultSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
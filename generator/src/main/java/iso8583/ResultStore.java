@@ -0,0 +1,155 @@
+package iso8583;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only on-disk store of per-field test results, kept between runs.
+ * Each record is a 64-bit fingerprint (see {@link #fingerprint(String...)}) followed by the field's
+ * (category index, outcome) pairs. On open the file is memory-mapped and scanned once to index the
+ * latest record per fingerprint; lookups read straight from the mapping and new results are appended.
+ * A record cut short by a crash is dropped and overwritten by the next append.
+ *
+ * File layout: the 8 byte magic "ISORSLT1", then records of
+ * [long fingerprint][short count][count x (byte category index, byte flags)].
+ */
+final class ResultStore implements AutoCloseable {
+
+    static final byte REJECTED = 1;
+    static final byte RECOVERED = 2;
+
+    private static final byte[] MAGIC = "ISORSLT1".getBytes(StandardCharsets.US_ASCII);
+    private static final int RECORD_HEADER = Long.BYTES + Short.BYTES;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+    // Fingerprint -> offset of its latest record in the mapping
+    private final Map<Long, Integer> index = new HashMap<>();
+
+    private ResultStore(FileChannel channel, MappedByteBuffer mapped) {
+        this.channel = channel;
+        this.mapped = mapped;
+    }
+
+    /**
+     * Opens the store, creating it if needed. A file that is not a result store is started afresh.
+     */
+    static ResultStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Result store " + file + " is too large to map, delete it to start over");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ResultStore store = new ResultStore(channel, mapped);
+            long end = store.scan();
+            if (end < 0) {
+                if (size > 0) {
+                    System.err.println("Result store " + file + " has an unknown format, starting a new one");
+                }
+                store.index.clear();
+                channel.truncate(0);
+                channel.write(ByteBuffer.wrap(MAGIC), 0);
+                end = MAGIC.length;
+            } else if (end < size) {
+                channel.truncate(end);
+            }
+            channel.position(end);
+            return store;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Indexes every complete record
+     * @return The offset just past the last complete record, or -1 if the file is not a result store
+     */
+    private long scan() {
+        int limit = mapped.limit();
+        if (limit < MAGIC.length) {
+            return -1;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (mapped.get(i) != MAGIC[i]) {
+                return -1;
+            }
+        }
+        int offset = MAGIC.length;
+        while (offset + RECORD_HEADER <= limit) {
+            int count = mapped.getShort(offset + Long.BYTES);
+            int next = offset + RECORD_HEADER + count * 2;
+            if (count < 0 || next > limit) {
+                break;
+            }
+            index.put(mapped.getLong(offset), offset);
+            offset = next;
+        }
+        return offset;
+    }
+
+    /**
+     * @return The stored (category index, flags) pairs for the fingerprint, or null if there are none
+     */
+    byte[] get(long fingerprint) {
+        Integer offset = index.get(fingerprint);
+        if (offset == null) {
+            return null;
+        }
+        byte[] results = new byte[mapped.getShort(offset + Long.BYTES) * 2];
+        mapped.get(offset + RECORD_HEADER, results);
+        return results;
+    }
+
+    /**
+     * Appends a field's results; they are found by the next run that opens the store
+     * @param results (category index, flags) pairs
+     */
+    void put(long fingerprint, byte[] results) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + results.length);
+        record.putLong(fingerprint).putShort((short) (results.length / 2)).put(results).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+    }
+
+    /**
+     * @return Number of distinct fingerprints found when the store was opened
+     */
+    int size() {
+        return index.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * 64-bit FNV-1a over the parts, with a separator between them so ("ab", "c") differs from ("a", "bc")
+     */
+    static long fingerprint(String... parts) {
+        long hash = FNV_OFFSET_BASIS;
+        for (String part : parts) {
+            for (int i = 0; i < part.length(); i++) {
+                char c = part.charAt(i);
+                hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+                hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+            }
+            hash = (hash ^ 0xFF) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,57 @@
+package iso8583;
+
+/**
+ * One of n shards of the field/category test matrix, given as "i/n" with i from 1 to n.
+ * Cases are numbered in config order (fields as in the config, categories in TEST_CATEGORIES order) and
+ * dealt out round-robin, so every process assigns the same cases to the same shard and shard sizes differ
+ * by at most one case. Cases cost about the same (one invalid send plus a recovery send that the response
+ * cache mostly answers), so equal counts give balanced run times.
+ */
+final class Shard {
+
+    private final int index;
+    private final int count;
+
+    private Shard(int index, int count) {
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * @param spec "i/n", e.g. "2/4"
+     */
+    static Shard parse(String spec) {
+        int slash = spec.indexOf('/');
+        try {
+            if (slash > 0) {
+                int index = Integer.parseInt(spec.substring(0, slash).trim());
+                int count = Integer.parseInt(spec.substring(slash + 1).trim());
+                if (count >= 1 && index >= 1 && index <= count) {
+                    return new Shard(index, count);
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid shard " + spec + ", expected i/n with 1 <= i <= n");
+    }
+
+    /**
+     * @param caseOrdinal Position of the case in config order, from 0
+     */
+    boolean owns(long caseOrdinal) {
+        return caseOrdinal % count == index - 1;
+    }
+
+    /**
+     * @return Inserted before the extension of this shard's result files, e.g. ".shard-2-of-4"
+     */
+    String fileSuffix() {
+        return ".shard-" + index + "-of-" + count;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
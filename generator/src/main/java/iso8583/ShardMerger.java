@@ -0,0 +1,144 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Combines the JSONL result files of a sharded run into one report.
+ * Cases are put back in config order, so the merged report has the same layout and the same per-field and
+ * overall pass rates as an unsharded run. Merging fails if a case is missing or appears in two files.
+ */
+final class ShardMerger {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, ResultSink.CaseResult> cases = new HashMap<>();
+    private boolean baselinePassed = true;
+    private int baselines;
+    private long cacheRequests;
+    private long cacheSavedSends;
+
+    /**
+     * Reads every shard file, checks that together they cover the whole test matrix and writes the merged report
+     * @return The number of test cases in the merged report
+     */
+    static int merge(List<Path> shardFiles, FieldSpecs fieldSpecs, ResultSink out) throws IOException {
+        ShardMerger merger = new ShardMerger();
+        for (Path file : shardFiles) {
+            merger.read(file);
+        }
+        merger.checkComplete(fieldSpecs);
+        return merger.write(fieldSpecs, out);
+    }
+
+    private void read(Path file) throws IOException {
+        int baselinesBefore = baselines;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode record = MAPPER.readTree(line);
+                switch (record.path("type").asText()) {
+                    case "valid":
+                        baselinePassed &= record.path("passed").asBoolean();
+                        baselines++;
+                        break;
+                    case "case":
+                        ResultSink.CaseResult result = new ResultSink.CaseResult(
+                                record.path("field").asText(), record.path("name").asText(),
+                                record.path("category").asText(), record.path("description").asText(),
+                                record.path("passed").asBoolean(), record.path("recovered").asBoolean(),
+                                record.path("transportError").asBoolean(), 
+                                record.path("recoveryTransportError").asBoolean(),
+                                record.path("notSent").asBoolean(), record.path("recoveryNotSent").asBoolean());
+                        if (cases.put(key(result.fieldNumber, result.category), result) != null) {
+                            throw new IOException("Field " + result.fieldNumber + " " + result.category +
+                                                  " appears in more than one shard file");
+                        }
+                        break;
+                    case "summary":
+                        // The merged cache line is only meaningful if every shard reported one
+                        if (record.has("cacheRequests") && cacheRequests >= 0) {
+                            cacheRequests += record.path("cacheRequests").asLong();
+                            cacheSavedSends += record.path("cacheSavedSends").asLong();
+                        } else {
+                            cacheRequests = -1;
+                        }
+                        break;
+                    default:
+                        throw new IOException("Unknown record in " + file + ": " + line);
+                }
+            }
+        }
+        if (baselines == baselinesBefore) {
+            throw new IOException("No valid data test result in " + file + ", is it a shard's JSONL results?");
+        }
+    }
+
+    private void checkComplete(FieldSpecs fieldSpecs) throws IOException {
+        List<String> missing = new ArrayList<>();
+        int expected = 0;
+        for (FieldSpec spec : fieldSpecs.all()) {
+            for (int i = 0; i < fieldSpecs.getTestCategories().size(); i++) {
+                if (spec.getInvalidValue(i) != null) {
+                    expected++;
+                    if (!cases.containsKey(key(spec.getKey(), category(fieldSpecs, i)))) {
+                        missing.add(spec.getKey() + " " + category(fieldSpecs, i));
+                    }
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IOException("Missing results for " + missing.size() + " cases (e.g. " + missing.get(0) +
+                                  "), were all shards merged?");
+        }
+        if (cases.size() != expected) {
+            throw new IOException((cases.size() - expected) + " results do not match the field config, " +
+                                  "were the shards run with a different config?");
+        }
+    }
+
+    private int write(FieldSpecs fieldSpecs, ResultSink out) throws IOException {
+        out.validBaseline(baselinePassed);
+        int totalTests = 0;
+        int passedTests = 0;
+        int transportErrors = 0;
+        int notSent = 0;
+        for (FieldSpec spec : fieldSpecs.all()) {
+            out.fieldStarted(spec.getKey(), spec.getName());
+            for (int i = 0; i < fieldSpecs.getTestCategories().size(); i++) {
+                if (spec.getInvalidValue(i) != null) {
+                    ResultSink.CaseResult result = cases.get(key(spec.getKey(), category(fieldSpecs, i)));
+                    totalTests += result.testsWithResult();
+                    transportErrors += result.transportErrors();
+                    notSent += result.notSentTests();
+                    passedTests += (result.passed ? 1 : 0) + (result.recovered ? 1 : 0);
+                    out.caseFinished(result);
+                }
+            }
+            out.fieldFinished();
+        }
+        out.finish(totalTests, passedTests, transportErrors, notSent, cacheRequests, cacheSavedSends);
+        return totalTests + transportErrors + notSent;
+    }
+
+    private static String category(FieldSpecs fieldSpecs, int categoryIndex) {
+        return fieldSpecs.getTestCategories().get(categoryIndex).replace("_value", "");
+    }
+
+    private static String key(String fieldNumber, String category) {
+        return fieldNumber + '\u0000' + category;
+    }
+}
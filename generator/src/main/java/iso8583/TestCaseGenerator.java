@@ -0,0 +1,256 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Generates the test values of iso_test_generator.py in the runner, from the base config (iso_config.json),
+ * instead of reading them from the extended and flattened config. It produces the same kinds of case:
+ * invalid type and special characters, short and long fixed lengths, exceeded maximum and empty variable
+ * lengths, invalid dates and times, binary and hex characters and bitmaps, as well as the validation rules
+ * and valid examples.
+ *
+ * Values are drawn from a SplittableRandom seeded per field from the run seed and the field's key, so each
+ * field is generated on its own, only when it is asked for, and the same seed always gives the same values.
+ * One field's values can be regenerated without the others.
+ */
+final class TestCaseGenerator {
+
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String DIGITS = "0123456789";
+    private static final String PUNCTUATION = "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~";
+    private static final String HEX_DIGITS = "0123456789ABCDEF";
+    private static final String[] DATE_TIME_KEYWORDS = {"Date", "Time", "MMDDhhmmss", "MMDD", "YYMM", "hhmmss"};
+
+    /**
+     * One generated invalid value
+     */
+    static final class TestCase {
+        final String field;
+        // The category as the flattened config names it, e.g. "invalid_type_value"
+        final String category;
+        final String value;
+        final String description;
+        // The field's seed, from which all of its cases are generated
+        final long seed;
+
+        private TestCase(String field, String category, String value, String description, long seed) {
+            this.field = field;
+            this.category = category;
+            this.value = value;
+            this.description = description;
+            this.seed = seed;
+        }
+    }
+
+    private final ObjectNode baseConfig;
+    private final long seed;
+
+    /**
+     * @param baseConfig The base config, keyed by field number, without test values
+     */
+    TestCaseGenerator(ObjectNode baseConfig, long seed) {
+        this.baseConfig = baseConfig;
+        this.seed = seed;
+    }
+
+    /**
+     * @return The seed all values of the field are drawn from
+     */
+    long fieldSeed(String key) {
+        return new SplittableRandom(seed ^ key.hashCode() * 0x9E3779B97F4A7C15L).nextLong();
+    }
+
+    /**
+     * @return The invalid values of every field, generated field by field as the stream is consumed
+     */
+    Stream<TestCase> cases() {
+        List<String> keys = new ArrayList<>();
+        baseConfig.fieldNames().forEachRemaining(keys::add);
+        return keys.stream().flatMap(key -> cases(key).stream());
+    }
+
+    /**
+     * @return The invalid values of one field, in the order the Python generator adds them
+     */
+    List<TestCase> cases(String key) {
+        JsonNode field = baseConfig.get(key);
+        List<TestCase> cases = new ArrayList<>();
+        if (field == null || !field.hasNonNull("format") || !field.hasNonNull("type")) {
+            return cases;
+        }
+        long fieldSeed = fieldSeed(key);
+        SplittableRandom random = new SplittableRandom(fieldSeed);
+        String format = field.get("format").asText();
+        String type = field.get("type").asText();
+        String name = field.path("name").asText();
+        int length = field.path("length").asInt(0);
+        int maxLength = field.path("max_length").asInt(0);
+        int size = length != 0 ? length : maxLength;
+        String filler = type.equals("numeric") ? DIGITS : LETTERS + DIGITS;
+
+        switch (type) {
+            case "numeric":
+                add(cases, key, "invalid_type", random(random, LETTERS, size), "Contains non-numeric characters",
+                    fieldSeed);
+                add(cases, key, "invalid_special_chars", random(random, PUNCTUATION, size), "Contains special characters",
+                    fieldSeed);
+                if (isDateTime(name, length)) {
+                    if (name.contains("Date") && length == 4) {
+                        add(cases, key, "invalid_date", "1332", "Invalid date value (invalid month)", fieldSeed);
+                    } else if (name.contains("Time") && length == 6) {
+                        add(cases, key, "invalid_time", "251060", "Invalid time value (invalid minutes)", fieldSeed);
+                    } else if (length == 10) {
+                        add(cases, key, "invalid_datetime", "1335251060", "Invalid date and time value", fieldSeed);
+                    }
+                }
+                break;
+            case "alphanumeric":
+                add(cases, key, "invalid_special_chars", random(random, PUNCTUATION, size),
+                    "Contains invalid special characters", fieldSeed);
+                break;
+            case "binary":
+                add(cases, key, "invalid_type", random(random, LETTERS + DIGITS, size), "Contains non-binary characters",
+                    fieldSeed);
+                add(cases, key, "invalid_binary_chars", random(random, "23456789", size),
+                    "Contains non-binary digits (not 0 or 1)", fieldSeed);
+                break;
+            case "hex":
+                add(cases, key, "invalid_type", random(random, LETTERS.substring(6) + PUNCTUATION, size),
+                    "Contains non-hexadecimal characters", fieldSeed);
+                add(cases, key, "invalid_hex_chars", random(random, "GHIJKLMNOPQRSTUVWXYZ", size),
+                    "Contains invalid hexadecimal letters", fieldSeed);
+                break;
+            default:
+                break;
+        }
+
+        if (format.equals("fixed")) {
+            add(cases, key, "invalid_length_short", random(random, filler, length - 1),
+                "Length shorter than required " + length + " characters", fieldSeed);
+            add(cases, key, "invalid_length_long", random(random, filler, length + 1),
+                "Length longer than required " + length + " characters", fieldSeed);
+        } else if (isVariable(format) && maxLength != 0) {
+            add(cases, key, "invalid_length_exceed_max", random(random, filler, maxLength + 1),
+                "Raw data exceeds maximum length of " + maxLength + " characters", fieldSeed);
+            add(cases, key, "invalid_empty", "", "Empty raw data", fieldSeed);
+        }
+
+        if (format.equals("bitmap")) {
+            add(cases, key, "invalid_bitmap_format", random(random, LETTERS + DIGITS, length), "Invalid bitmap format",
+                fieldSeed);
+            add(cases, key, "invalid_bitmap_length", random(random, "01", length - 8), "Invalid bitmap length",
+                fieldSeed);
+        }
+        return cases;
+    }
+
+    /**
+     * @return The base config with every field extended as iso_test_generator.py and the flattening step
+     *         would: validation rules, valid examples and the test values as [category]_value and
+     *         [category]_description properties
+     */
+    ObjectNode extendedConfig() {
+        ObjectNode extended = baseConfig.objectNode();
+        for (Iterator<String> keys = baseConfig.fieldNames(); keys.hasNext(); ) {
+            String key = keys.next();
+            extended.set(key, extendField(key));
+        }
+        return extended;
+    }
+
+    private ObjectNode extendField(String key) {
+        ObjectNode field = baseConfig.get(key).deepCopy();
+        if (!field.hasNonNull("format") || !field.hasNonNull("type")) {
+            return field;
+        }
+        String format = field.get("format").asText();
+        String type = field.get("type").asText();
+        String name = field.path("name").asText();
+        int length = field.path("length").asInt(0);
+        int maxLength = field.path("max_length").asInt(0);
+        String allowedChars = type.equals("numeric") ? "0-9" : type.equals("alphanumeric") ? "a-zA-Z0-9" :
+                              type.equals("binary") ? "0-1" : "0-9A-F";
+        // Valid examples have a stream of their own, so they do not depend on how many test values there are
+        SplittableRandom random = new SplittableRandom(fieldSeed(key)).split();
+
+        if (format.equals("fixed")) {
+            ObjectNode rules = field.putObject("validationRules");
+            rules.put("exactLength", length);
+            rules.put("allowedChars", allowedChars);
+            rules.put("description", "Must be exactly " + length + " characters long with " + type + " characters");
+            if (isDateTime(name, length)) {
+                rules.put("isDateTime", true);
+                rules.put("format", length == 4 ? "MMDD" : length == 6 ? "hhmmss" : length == 10 ? "MMDDhhmmss" : "YYMM");
+            }
+            // Numeric date/time fields take the config's sample data, which is a real date; others are random
+            if (type.equals("numeric") && isDateTime(name, length)) {
+                field.set("validExample", field.get("SampleData"));
+            } else {
+                field.put("validExample", random(random, charsOf(type), length));
+            }
+        } else if (isVariable(format)) {
+            ObjectNode rules = field.putObject("validationRules");
+            int prefixDigits = format.equals("llvar") ? 2 : 3;
+            rules.put("maxLength", maxLength);
+            rules.put("lengthIndicatorSize", prefixDigits);
+            rules.put("allowedChars", allowedChars);
+            rules.put("description", "Variable length up to " + maxLength + " characters with " + format +
+                                     " length indicator");
+            String raw = random(random, charsOf(type), 1 + random.nextInt(Math.max(1, maxLength)));
+            String prefix = String.format("%0" + prefixDigits + "d", raw.length());
+            field.put("validExampleRaw", raw);
+            field.put("validExample", prefix + raw);
+            ObjectNode example = rules.putObject("formatExample");
+            example.put("raw", raw);
+            example.put("formatted", prefix + raw);
+            example.put("explanation", "Length indicator '" + prefix + "' + raw data '" + raw + "'");
+        }
+
+        for (TestCase testCase : cases(key)) {
+            field.put(testCase.category, testCase.value);
+            field.put(testCase.category.replace("value", "description"), testCase.description);
+        }
+        return field;
+    }
+
+    private static void add(List<TestCase> cases, String field, String kind, String value, String description,
+                            long seed) {
+        cases.add(new TestCase(field, kind + "_value", value, description, seed));
+    }
+
+    private static String charsOf(String type) {
+        return type.equals("numeric") ? DIGITS : type.equals("binary") ? "01" : type.equals("hex") ? HEX_DIGITS :
+               LETTERS + DIGITS;
+    }
+
+    private static boolean isVariable(String format) {
+        return format.equals("llvar") || format.equals("lllvar");
+    }
+
+    private static boolean isDateTime(String name, int length) {
+        if (length != 4 && length != 6 && length != 8 && length != 10 && length != 12) {
+            return false;
+        }
+        for (String keyword : DATE_TIME_KEYWORDS) {
+            if (name.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String random(SplittableRandom random, String chars, int length) {
+        char[] value = new char[Math.max(0, length)];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = chars.charAt(random.nextInt(chars.length()));
+        }
+        return new String(value);
+    }
+}
@@ -0,0 +1,265 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-field and per-category metrics for a test run.
+ * Each (field, category) pair gets a {@link CaseMetrics} holding LongAdder based timers for the build,
+ * send and validate stages plus result counters. Callers look the pair up once when scheduling a case and
+ * record into it directly, so recording is a few uncontended adds with no map lookups or allocation.
+ *
+ * Metrics can be served in Prometheus text format over HTTP and/or written periodically as a JSON snapshot.
+ */
+public class TestMetrics {
+
+    /**
+     * Records that are never exported, for sends made outside a tracked test case
+     */
+    public static final CaseMetrics DISCARD = new CaseMetrics("", "");
+
+    private final Map<String, CaseMetrics> cases = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ScheduledExecutorService snapshots;
+
+    /**
+     * @return The metrics for a field and test category, created on first use
+     */
+    public CaseMetrics forCase(String field, String category) {
+        return cases.computeIfAbsent(field + '\u0000' + category, key -> new CaseMetrics(field, category));
+    }
+
+    /**
+     * Serves the metrics in Prometheus text format at http://host:port/metrics
+     */
+    public void startPrometheusEndpoint(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/metrics", this::handleScrape);
+        server.setExecutor(Executors.newSingleThreadExecutor(TestMetrics::daemonThread));
+        server.start();
+    }
+
+    /**
+     * Writes a JSON snapshot to the given file every intervalSeconds, replacing the previous one
+     */
+    public void startJsonSnapshots(Path file, long intervalSeconds) {
+        snapshots = Executors.newSingleThreadScheduledExecutor(TestMetrics::daemonThread);
+        snapshots.scheduleAtFixedRate(() -> writeJsonSnapshot(file), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes a JSON snapshot of the current values, atomically replacing the file
+     */
+    public void writeJsonSnapshot(Path file) {
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temp, toJson());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error writing metrics snapshot: " + e.getMessage());
+        }
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (snapshots != null) {
+            snapshots.shutdown();
+        }
+    }
+
+    /**
+     * @return The metrics in Prometheus text exposition format
+     */
+    public String toPrometheusText() {
+        List<CaseMetrics> snapshot = sortedCases();
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP iso8583_stage_seconds Time spent per stage of a test message\n");
+        text.append("# TYPE iso8583_stage_seconds summary\n");
+        for (CaseMetrics metrics : snapshot) {
+            appendTimer(text, metrics, "build", metrics.build);
+            appendTimer(text, metrics, "send", metrics.send);
+            appendTimer(text, metrics, "validate", metrics.validate);
+        }
+        text.append("# HELP iso8583_stage_seconds_max Slowest single stage of a test message\n");
+        text.append("# TYPE iso8583_stage_seconds_max gauge\n");
+        for (CaseMetrics metrics : snapshot) {
+            appendMax(text, metrics, "build", metrics.build);
+            appendMax(text, metrics, "send", metrics.send);
+            appendMax(text, metrics, "validate", metrics.validate);
+        }
+        text.append("# HELP iso8583_test_results_total Test results by outcome\n");
+        text.append("# TYPE iso8583_test_results_total counter\n");
+        for (CaseMetrics metrics : snapshot) {
+            appendLabels(text.append("iso8583_test_results_total"), metrics).append(",result=\"passed\"} ")
+                    .append(metrics.passed.sum()).append('\n');
+            appendLabels(text.append("iso8583_test_results_total"), metrics).append(",result=\"failed\"} ")
+                    .append(metrics.failed.sum()).append('\n');
+        }
+        text.append("# HELP iso8583_send_errors_total Messages that could not be built or sent\n");
+        text.append("# TYPE iso8583_send_errors_total counter\n");
+        for (CaseMetrics metrics : snapshot) {
+            appendLabels(text.append("iso8583_send_errors_total"), metrics).append("} ")
+                    .append(metrics.errors.sum()).append('\n');
+        }
+        text.append("# HELP iso8583_transport_errors_total Messages that got no response from the parser\n");
+        text.append("# TYPE iso8583_transport_errors_total counter\n");
+        for (CaseMetrics metrics : snapshot) {
+            appendLabels(text.append("iso8583_transport_errors_total"), metrics).append("} ")
+                    .append(metrics.transportErrors.sum()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return The metrics as a JSON document, one entry per field and category
+     */
+    public String toJson() {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode root = mapper.createObjectNode();
+        root.put("timestamp", System.currentTimeMillis());
+        ArrayNode entries = root.putArray("cases");
+        for (CaseMetrics metrics : sortedCases()) {
+            ObjectNode entry = entries.addObject();
+            entry.put("field", metrics.field);
+            entry.put("category", metrics.category);
+            entry.put("passed", metrics.passed.sum());
+            entry.put("failed", metrics.failed.sum());
+            entry.put("errors", metrics.errors.sum());
+            entry.put("transportErrors", metrics.transportErrors.sum());
+            putTimer(entry.putObject("build"), metrics.build);
+            putTimer(entry.putObject("send"), metrics.send);
+            putTimer(entry.putObject("validate"), metrics.validate);
+        }
+        return root.toPrettyString();
+    }
+
+    private List<CaseMetrics> sortedCases() {
+        List<CaseMetrics> snapshot = new ArrayList<>(cases.values());
+        snapshot.sort((a, b) -> a.field.equals(b.field) ? a.category.compareTo(b.category) : a.field.compareTo(b.field));
+        return snapshot;
+    }
+
+    private static void appendTimer(StringBuilder text, CaseMetrics metrics, String stage, Timer timer) {
+        appendLabels(text.append("iso8583_stage_seconds_count"), metrics).append(",stage=\"").append(stage)
+                .append("\"} ").append(timer.count.sum()).append('\n');
+        appendLabels(text.append("iso8583_stage_seconds_sum"), metrics).append(",stage=\"").append(stage)
+                .append("\"} ").append(timer.totalNanos.sum() / 1e9).append('\n');
+    }
+
+    private static void appendMax(StringBuilder text, CaseMetrics metrics, String stage, Timer timer) {
+        appendLabels(text.append("iso8583_stage_seconds_max"), metrics).append(",stage=\"").append(stage)
+                .append("\"} ").append(timer.maxNanos.get() / 1e9).append('\n');
+    }
+
+    private static StringBuilder appendLabels(StringBuilder text, CaseMetrics metrics) {
+        return text.append("{field=\"").append(escapeLabel(metrics.field))
+                   .append("\",category=\"").append(escapeLabel(metrics.category)).append('"');
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static void putTimer(ObjectNode node, Timer timer) {
+        long count = timer.count.sum();
+        node.put("count", count);
+        node.put("totalMillis", timer.totalNanos.sum() / 1e6);
+        node.put("meanMillis", count > 0 ? timer.totalNanos.sum() / 1e6 / count : 0);
+        node.put("maxMillis", timer.maxNanos.get() / 1e6);
+    }
+
+    private void handleScrape(HttpExchange exchange) throws IOException {
+        byte[] body = toPrometheusText().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream response = exchange.getResponseBody()) {
+            response.write(body);
+        }
+    }
+
+    private static Thread daemonThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "iso8583-metrics");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Count, total and maximum of a latency, safe to record from many threads
+     */
+    public static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+    }
+
+    /**
+     * Metrics for one field and test category
+     */
+    public static final class CaseMetrics {
+        private final String field;
+        private final String category;
+        final Timer build = new Timer();
+        final Timer send = new Timer();
+        final Timer validate = new Timer();
+        private final LongAdder passed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder transportErrors = new LongAdder();
+
+        private CaseMetrics(String field, String category) {
+            this.field = field;
+            this.category = category;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public void recordResult(boolean testPassed) {
+            (testPassed ? passed : failed).increment();
+        }
+
+        public void recordError() {
+            errors.increment();
+        }
+
+        /**
+         * A message that got no answer from the parser; it has no test result
+         */
+        public void recordTransportError() {
+            transportErrors.increment();
+        }
+    }
+}
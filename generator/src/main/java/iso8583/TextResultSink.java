@@ -0,0 +1,112 @@
+package iso8583;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The human-readable report, iso8583_parser_test_results.txt
+ */
+final class TextResultSink implements ResultSink {
+
+    private final ChannelReportWriter out;
+    private int fieldTestCount;
+    private int fieldPassed;
+    private int fieldTransportErrors;
+    private int fieldNotSent;
+
+    TextResultSink(Path file) throws IOException {
+        this.out = new ChannelReportWriter(file);
+        out.append("ISO8583 Parser Test Results\n");
+        out.append("==========================\n\n");
+    }
+
+    @Override
+    public void validBaseline(boolean passed) throws IOException {
+        out.append("Valid Data Test: ").append(passed ? "PASSED" : "FAILED").append("\n\n");
+    }
+
+    @Override
+    public void fieldStarted(String fieldNumber, String name) throws IOException {
+        out.append("Field ").append(fieldNumber).append(": ").append(name).append('\n');
+        fieldTestCount = 0;
+        fieldPassed = 0;
+        fieldTransportErrors = 0;
+        fieldNotSent = 0;
+    }
+
+    @Override
+    public void caseFinished(CaseResult result) throws IOException {
+        out.append("  - ").append(result.category)
+           .append(": ").append(outcome(result.passed, result.transportError, result.notSent))
+           .append(" (").append(result.description).append(")\n");
+        out.append("    Recovery: ")
+           .append(outcome(result.recovered, result.recoveryTransportError, result.recoveryNotSent)).append('\n');
+        fieldTestCount += result.testsWithResult();
+        fieldTransportErrors += result.transportErrors();
+        fieldNotSent += result.notSentTests();
+        fieldPassed += (result.passed ? 1 : 0) + (result.recovered ? 1 : 0);
+    }
+
+    private static String outcome(boolean passed, boolean transportError, boolean notSent) {
+        return transportError ? "TRANSPORT ERROR" : notSent ? "NOT SENT" : passed ? "PASSED" : "FAILED";
+    }
+
+    @Override
+    public void fieldFinished() throws IOException {
+        if (fieldTestCount > 0) {
+            out.append("  Summary: ").append(fieldPassed).append('/').append(fieldTestCount)
+               .append(" tests passed (").append(String.format("%.1f", (fieldPassed * 100.0 / fieldTestCount)))
+               .append("%)");
+            appendUnanswered();
+            out.append("\n\n");
+        } else if (fieldTransportErrors > 0 || fieldNotSent > 0) {
+            out.append("  Summary: no parser results");
+            appendUnanswered();
+            out.append("\n\n");
+        } else {
+            out.append("  No tests available for this field\n\n");
+        }
+    }
+
+    private void appendUnanswered() throws IOException {
+        if (fieldTransportErrors > 0) {
+            out.append(", ").append(fieldTransportErrors).append(" transport errors");
+        }
+        if (fieldNotSent > 0) {
+            out.append(", ").append(fieldNotSent).append(" not sent");
+        }
+    }
+
+    @Override
+    public void finish(int totalTests, int passedTests, int transportErrors, int notSent, long cacheRequests, 
+                       long cacheSavedSends) throws IOException {
+        double passRate = totalTests > 0 ? (passedTests * 100.0 / totalTests) : 0;
+        out.append("\nOverall Summary\n");
+        out.append("--------------\n");
+        out.append("Total Tests: ").append(totalTests).append('\n');
+        out.append("Passed Tests: ").append(passedTests).append('\n');
+        out.append("Pass Rate: ").append(String.format("%.1f", passRate)).append("%\n");
+        if (transportErrors > 0) {
+            out.append("Transport Errors: ").append(transportErrors)
+               .append(" (no response from the parser, not counted above)\n");
+        }
+        if (notSent > 0) {
+            out.append("Not Sent: ").append(notSent)
+               .append(" (value could not be packed into the message, not counted above)\n");
+        }
+        if (cacheRequests >= 0) {
+            out.append("Sends Saved By Cache: ").append(cacheSavedSends)
+               .append(" of ").append(cacheRequests).append('\n');
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,326 @@
+package iso8583;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary log of the messages sent to the parser and what came back, written with -Diso8583.capture and
+ * read by the replay mode. Every record holds the test case it belongs to, the field data and the built
+ * message (so validation can be re-run), the parser response, when the send started and how long it took.
+ * Records are appended from any sending thread through one buffered channel. Test messages differ from
+ * each other in a field or two, so a record only holds the fields that changed since the previous record.
+ *
+ * File layout: the 8 byte magic "ISOTRAF1" and the capture start time (epoch millis), then records of
+ * [int length][long start offset nanos][long send nanos][byte outcome][string field][string category]
+ * [short count][count x (string key, string value or null if removed)][string message][string response],
+ * where a string is [int byte length, -1 for null][UTF-8 bytes]. A record cut short by a crash is ignored
+ * when reading.
+ */
+final class TrafficLog implements AutoCloseable {
+
+    private static final byte[] MAGIC = "ISOTRAF1".getBytes(StandardCharsets.US_ASCII);
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final long startNanos = System.nanoTime();
+    private final RecordEncoder record = new RecordEncoder();
+    // Field data as of the last record written
+    private final Map<String, String> previousFieldData = new HashMap<>();
+    private final List<String> removedKeys = new ArrayList<>();
+    // The first write error; capture stops there and the error is reported on close
+    private IOException failure;
+    private long records;
+
+    private TrafficLog(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /**
+     * Starts a new log, replacing any existing file
+     */
+    static TrafficLog create(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING);
+        TrafficLog log = new TrafficLog(file, channel);
+        log.buffer.put(MAGIC).putLong(System.currentTimeMillis());
+        return log;
+    }
+
+    /**
+     * Appends one send
+     * @param sendStartNanos System.nanoTime() when the send started
+     * @param response The parser response, or null if there was none
+     */
+    synchronized void append(long sendStartNanos, long sendNanos, ISO8583TestGenerator.SendOutcome outcome,
+                             String field, String category, Map<String, String> fieldData, String isoMessage,
+                             String response) {
+        if (failure != null) {
+            return;
+        }
+        record.size = 0;
+        record.putLong(sendStartNanos - startNanos).putLong(sendNanos).put((byte) outcome.ordinal());
+        record.putString(field).putString(category);
+        putFieldDataChanges(fieldData);
+        record.putString(isoMessage).putString(response);
+        try {
+            if (buffer.remaining() < Integer.BYTES + record.size) {
+                drain();
+            }
+            if (buffer.remaining() < Integer.BYTES + record.size) {
+                // Larger than the whole buffer
+                ByteBuffer large = ByteBuffer.allocate(Integer.BYTES + record.size);
+                large.putInt(record.size).put(record.bytes, 0, record.size).flip();
+                while (large.hasRemaining()) {
+                    channel.write(large);
+                }
+            } else {
+                buffer.putInt(record.size).put(record.bytes, 0, record.size);
+            }
+            records++;
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void putFieldDataChanges(Map<String, String> fieldData) {
+        int countAt = record.size;
+        int count = 0;
+        record.putShort(0);
+        for (Map.Entry<String, String> entry : fieldData.entrySet()) {
+            String value = entry.getValue();
+            if (value != null && !value.equals(previousFieldData.get(entry.getKey()))) {
+                record.putString(entry.getKey()).putString(value);
+                previousFieldData.put(entry.getKey(), value);
+                count++;
+            }
+        }
+        // A null value is the same as no value
+        removedKeys.clear();
+        for (String key : previousFieldData.keySet()) {
+            if (fieldData.get(key) == null) {
+                removedKeys.add(key);
+            }
+        }
+        for (String key : removedKeys) {
+            record.putString(key).putString(null);
+            previousFieldData.remove(key);
+            count++;
+        }
+        record.bytes[countAt] = (byte) (count >>> 8);
+        record.bytes[countAt + 1] = (byte) count;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * @return The number of sends logged
+     */
+    synchronized long getRecords() {
+        return records;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (failure == null) {
+                drain();
+            }
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw new IOException("Capture to " + file + " stopped after " + records + " messages: " +
+                                  failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Growable byte array for encoding one record
+     */
+    private static final class RecordEncoder {
+        byte[] bytes = new byte[512];
+        int size;
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        RecordEncoder put(byte value) {
+            ensure(1);
+            bytes[size++] = value;
+            return this;
+        }
+
+        RecordEncoder putShort(int value) {
+            ensure(2);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+            return this;
+        }
+
+        RecordEncoder putInt(int value) {
+            ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+            return this;
+        }
+
+        RecordEncoder putLong(long value) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+            return this;
+        }
+
+        RecordEncoder putString(String value) {
+            if (value == null) {
+                return putInt(-1);
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            putInt(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+            return this;
+        }
+    }
+
+    /**
+     * One logged send
+     */
+    static final class Record {
+        final long startOffsetNanos;
+        final long sendNanos;
+        final ISO8583TestGenerator.SendOutcome outcome;
+        final String field;
+        final String category;
+        final Map<String, String> fieldData;
+        final String isoMessage;
+        // Null if the send got no response
+        final String response;
+
+        private Record(long startOffsetNanos, long sendNanos, ISO8583TestGenerator.SendOutcome outcome,
+                       String field, String category, Map<String, String> fieldData, String isoMessage,
+                       String response) {
+            this.startOffsetNanos = startOffsetNanos;
+            this.sendNanos = sendNanos;
+            this.outcome = outcome;
+            this.field = field;
+            this.category = category;
+            this.fieldData = fieldData;
+            this.isoMessage = isoMessage;
+            this.response = response;
+        }
+    }
+
+    /**
+     * Reads a log front to back, one record at a time
+     */
+    static final class Reader implements AutoCloseable {
+        private final DataInputStream in;
+        private final long captureStartMillis;
+        private final Map<String, String> fieldData = new HashMap<>();
+
+        Reader(Path file) throws IOException {
+            InputStream stream = Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ));
+            this.in = new DataInputStream(new BufferedInputStream(stream, BUFFER_SIZE));
+            try {
+                byte[] magic = new byte[MAGIC.length];
+                in.readFully(magic);
+                if (!Arrays.equals(magic, MAGIC)) {
+                    throw new IOException(file + " is not a capture log");
+                }
+                captureStartMillis = in.readLong();
+            } catch (IOException e) {
+                in.close();
+                throw e instanceof EOFException ? new IOException(file + " is not a capture log") : e;
+            }
+        }
+
+        /**
+         * @return When the capture started, in epoch millis
+         */
+        long getCaptureStartMillis() {
+            return captureStartMillis;
+        }
+
+        /**
+         * @return The next record, or null at the end of the log (or at a record cut short)
+         */
+        Record next() throws IOException {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            try {
+                in.readFully(bytes);
+            } catch (EOFException e) {
+                return null;
+            }
+            ByteBuffer record = ByteBuffer.wrap(bytes);
+            long startOffsetNanos = record.getLong();
+            long sendNanos = record.getLong();
+            ISO8583TestGenerator.SendOutcome outcome = ISO8583TestGenerator.SendOutcome.values()[record.get()];
+            String field = readString(record);
+            String category = readString(record);
+            int count = record.getShort() & 0xFFFF;
+            for (int i = 0; i < count; i++) {
+                String key = readString(record);
+                String value = readString(record);
+                if (value == null) {
+                    fieldData.remove(key);
+                } else {
+                    fieldData.put(key, value);
+                }
+            }
+            // Records are replayed concurrently, so each gets its own copy
+            return new Record(startOffsetNanos, sendNanos, outcome, field, category, new HashMap<>(fieldData),
+                              readString(record), readString(record));
+        }
+
+        private static String readString(ByteBuffer record) {
+            int length = record.getInt();
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(record.array(), record.position(), length, StandardCharsets.UTF_8);
+            record.position(record.position() + length);
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package iso8583;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a {@link TrafficLog} and compares every outcome with the recorded one.
+ * Records are streamed from the log and handed to a fixed pool of threads, with at most 64 per thread
+ * waiting, so logs of any size replay in constant memory. Sends are paced by their recorded start times
+ * divided by the speed factor; a speed of 0 sends as fast as the threads allow.
+ */
+final class TrafficReplay {
+
+    /**
+     * Produces the outcome for one recorded send, by sending it again or by re-validating its response
+     */
+    interface Replayer {
+        ISO8583TestGenerator.SendOutcome replay(TrafficLog.Record record);
+    }
+
+    private final double speed;
+    private final int threads;
+    private final int maxReported;
+
+    /**
+     * @param speed Multiple of the recorded pace to replay at, or 0 for no pacing
+     * @param threads Records replayed at the same time
+     * @param maxReported Changed outcomes kept for the report
+     */
+    TrafficReplay(double speed, int threads, int maxReported) {
+        this.speed = speed;
+        this.threads = Math.max(1, threads);
+        this.maxReported = maxReported;
+    }
+
+    /**
+     * Replays every record of the log and waits for the last one
+     */
+    Results run(TrafficLog.Reader log, Replayer replayer) throws IOException, InterruptedException {
+        Results results = new Results(maxReported);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Semaphore queued = new Semaphore(threads * 64);
+        long start = System.nanoTime();
+        try {
+            TrafficLog.Record record;
+            while ((record = log.next()) != null) {
+                if (speed > 0) {
+                    waitUntil(start + (long) (record.startOffsetNanos / speed));
+                }
+                queued.acquire();
+                TrafficLog.Record replayed = record;
+                executor.execute(() -> {
+                    try {
+                        long sent = System.nanoTime();
+                        ISO8583TestGenerator.SendOutcome outcome = replayer.replay(replayed);
+                        results.record(replayed, outcome, System.nanoTime() - sent);
+                    } finally {
+                        queued.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        results.elapsedNanos = System.nanoTime() - start;
+        return results;
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Counts of replayed records and the first changed outcomes
+     */
+    static final class Results {
+        final LongAdder records = new LongAdder();
+        final LongAdder same = new LongAdder();
+        final LongAdder changed = new LongAdder();
+        // Recorded or replayed without a parser response, so not compared
+        final LongAdder transportErrors = new LongAdder();
+        final LongAdder recordedNanos = new LongAdder();
+        final LongAdder replayedNanos = new LongAdder();
+        final Queue<String> changes = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger reported = new AtomicInteger();
+        private final int maxReported;
+        long elapsedNanos;
+
+        private Results(int maxReported) {
+            this.maxReported = maxReported;
+        }
+
+        private void record(TrafficLog.Record record, ISO8583TestGenerator.SendOutcome outcome, long nanos) {
+            records.increment();
+            recordedNanos.add(record.sendNanos);
+            replayedNanos.add(nanos);
+            if (record.outcome == ISO8583TestGenerator.SendOutcome.TRANSPORT_ERROR ||
+                outcome == ISO8583TestGenerator.SendOutcome.TRANSPORT_ERROR) {
+                transportErrors.increment();
+            } else if (record.outcome == outcome) {
+                same.increment();
+            } else {
+                changed.increment();
+                if (reported.getAndIncrement() < maxReported) {
+                    changes.add("Field " + record.field + " " + record.category + ": " + record.outcome +
+                                " -> " + outcome);
+                }
+            }
+        }
+    }
+}
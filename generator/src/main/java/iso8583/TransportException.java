@@ -0,0 +1,17 @@
+package iso8583;
+
+import java.io.IOException;
+
+/**
+ * A message got no answer from the parser: the connection failed or timed out on every attempt, or the
+ * circuit breaker was open. Unlike a rejection this says nothing about the message, so such sends are
+ * reported as transport errors rather than as passed or failed tests.
+ */
+public class TransportException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TransportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
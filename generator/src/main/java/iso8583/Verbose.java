@@ -0,0 +1,14 @@
+package iso8583;
+
+/**
+ * Holds the per-message console logging switch, so that classes used outside a test run can read it
+ * without initializing {@link ISO8583TestGenerator}
+ */
+final class Verbose {
+
+    // Per-message console logging; turn off with -Diso8583.verbose=false for large runs
+    static final boolean VERBOSE = Boolean.parseBoolean(System.getProperty("iso8583.verbose", "true"));
+
+    private Verbose() {
+    }
+}
@@ -0,0 +1,124 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchingParserTransportTest {
+
+    @Test
+    void eachCallerGetsItsOwnResponse() throws Exception {
+        try (LoopbackParserStub stub = new LoopbackParserStub(message -> "{\"echo\":\"" + message + "\"}", 2)) {
+            ParserHttpClient client = client(stub);
+            // A long window, so the batch goes out once it is full
+            BatchingParserTransport transport = new BatchingParserTransport(client, client, 4, 10_000, 1);
+            try {
+                List<CompletableFuture<String>> responses = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    responses.add(transport.sendAsync("message " + i));
+                }
+                for (int i = 0; i < 4; i++) {
+                    assertEquals("{\"echo\":\"message " + i + "\"}", responses.get(i).get());
+                }
+                assertEquals("Batching: 4 messages in 1 requests (4.0 per request)", transport.summary());
+            } finally {
+                transport.close();
+            }
+        }
+    }
+
+    @Test
+    void matchesSingleSendsThroughTheLoopbackParser() throws Exception {
+        FieldSpecs fieldSpecs = TestFieldConfig.fieldSpecs();
+        IsoMessagePacker packer = new IsoMessagePacker(fieldSpecs, IsoMessagePacker.Encoding.ASCII);
+        String valid = packer.toWireString(packer.pack(TestFieldConfig.validMessage(fieldSpecs)));
+        String invalid = valid.replace("TERM0001", "TERM!@#$");
+        InProcessParserTransport parser =
+                InProcessParserTransport.load(null, fieldSpecs, IsoMessagePacker.Encoding.ASCII);
+        try (LoopbackParserTransport loopback = new LoopbackParserTransport(
+                parser, 2, false, Duration.ofSeconds(5), Duration.ofSeconds(5))) {
+            BatchingParserTransport transport =
+                    new BatchingParserTransport(loopback.getClient(), loopback, 2, 10_000, 1);
+            CompletableFuture<String> first = transport.sendAsync(valid);
+            CompletableFuture<String> second = transport.sendAsync(invalid);
+
+            assertEquals(loopback.send(valid), first.get());
+            assertEquals(loopback.send(invalid), second.get());
+        }
+    }
+
+    @Test
+    void aFailedRequestFailsEveryMessageInIt() throws Exception {
+        try (LoopbackParserStub stub = new LoopbackParserStub(message -> {
+            throw new IllegalStateException("Parser down");
+        }, 1)) {
+            ParserHttpClient client = client(stub);
+            BatchingParserTransport transport = new BatchingParserTransport(client, client, 2, 10_000, 1);
+            try {
+                CompletableFuture<String> first = transport.sendAsync("first");
+                CompletableFuture<String> second = transport.sendAsync("second");
+
+                assertInstanceOf(IOException.class, assertThrows(ExecutionException.class, first::get).getCause());
+                assertInstanceOf(IOException.class, assertThrows(ExecutionException.class, second::get).getCause());
+            } finally {
+                transport.close();
+            }
+        }
+    }
+
+    @Test
+    void anErrorStatusForTheBatchIsATransportFailure() throws Exception {
+        try (LoopbackParserStub stub = new LoopbackParserStub("{}", 1)) {
+            stub.setStatus(400);
+            ParserHttpClient client = client(stub);
+            BatchingParserTransport transport = new BatchingParserTransport(client, client, 2, 0, 1);
+            try {
+                CompletableFuture<String> first = transport.sendAsync("first");
+                CompletableFuture<String> second = transport.sendAsync("second");
+
+                // Not the parser rejecting each message, so not a StatusException
+                Throwable failure = assertThrows(ExecutionException.class, first::get).getCause();
+                assertInstanceOf(IOException.class, failure);
+                assertFalse(failure instanceof ParserHttpClient.StatusException, failure.toString());
+                assertFalse(assertThrows(ExecutionException.class, second::get).getCause()
+                            instanceof ParserHttpClient.StatusException);
+
+                // So it is retried and reported as a transport error
+                ResilientParserTransport resilient = 
+                        new ResilientParserTransport(transport, null, new CircuitBreaker(0, 60_000), 1, 1);
+                assertThrows(TransportException.class, () -> resilient.send("third"));
+                assertTrue(resilient.summary().startsWith("Transport: 1 retries, 1 sends without a response"),
+                           resilient.summary());
+            } finally {
+                transport.close();
+            }
+        }
+    }
+
+    @Test
+    void refusesSendsOnceClosed() throws Exception {
+        try (LoopbackParserStub stub = new LoopbackParserStub("{}", 1)) {
+            ParserHttpClient client = client(stub);
+            BatchingParserTransport transport = new BatchingParserTransport(client, client, 2, 0, 1);
+            transport.close();
+
+            IOException e = assertThrows(IOException.class, () -> transport.send("0200"));
+            assertEquals("Parser transport closed", e.getMessage());
+        }
+    }
+
+    private static ParserHttpClient client(LoopbackParserStub stub) {
+        return new ParserHttpClient(stub.getUrl(), false, Duration.ofSeconds(5), Duration.ofSeconds(5));
+    }
+}
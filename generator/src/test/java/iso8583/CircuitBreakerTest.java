@@ -0,0 +1,67 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensHalfOpensAndCloses() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(3, 20);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.allowRequest());
+            breaker.onFailure();
+        }
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+        assertEquals(1, breaker.getTimesOpened());
+        assertFalse(breaker.allowRequest());
+
+        Thread.sleep(30);
+        // Half open: one trial send and nothing else until it reports
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+        breaker.onSuccess();
+
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+        assertEquals(0, breaker.getConsecutiveFailures());
+        assertEquals(1, breaker.getTimesOpened());
+    }
+
+    @Test
+    void failedTrialReopens() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(1, 20);
+        breaker.allowRequest();
+        breaker.onFailure();
+        Thread.sleep(30);
+
+        assertTrue(breaker.allowRequest());
+        breaker.onFailure();
+        assertFalse(breaker.allowRequest());
+        assertEquals(2, breaker.getTimesOpened());
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker(2, 60_000);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(breaker.allowRequest());
+            breaker.onFailure();
+            breaker.onSuccess();
+        }
+        assertEquals(0, breaker.getTimesOpened());
+    }
+
+    @Test
+    void zeroThresholdNeverOpens() {
+        CircuitBreaker breaker = new CircuitBreaker(0, 60_000);
+        for (int i = 0; i < 10; i++) {
+            breaker.onFailure();
+        }
+        assertTrue(breaker.allowRequest());
+    }
+}
@@ -0,0 +1,102 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ConfigSnapshotTest {
+
+    private final byte[] json = TestFieldConfig.JSON.getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void loadsTheSameSpecsAsTheJson() throws IOException {
+        Path snapshot = write();
+        FieldSpecs loaded = ConfigSnapshot.load(json, snapshot, ISO8583TestGenerator.TEST_CATEGORIES);
+        FieldSpecs compiled = TestFieldConfig.fieldSpecs();
+
+        assertNotNull(loaded);
+        assertEquals(compiled.all().size(), loaded.all().size());
+        for (FieldSpec expected : compiled.all()) {
+            FieldSpec spec = loaded.byKey(expected.getKey());
+            assertEquals(expected.getName(), spec.getName());
+            assertEquals(expected.getType(), spec.getType());
+            assertEquals(expected.getMaxLength(), spec.getMaxLength());
+            assertEquals(expected.getBaselineValue(), spec.getBaselineValue());
+            for (int i = 0; i < ISO8583TestGenerator.TEST_CATEGORIES.size(); i++) {
+                assertEquals(expected.getInvalidValue(i), spec.getInvalidValue(i), expected.getKey() + " " + i);
+            }
+            assertEquals(compiled.getFieldJson(expected.getKey()), loaded.getFieldJson(expected.getKey()));
+        }
+    }
+
+    @Test
+    void staleOnceTheJsonChanges() throws IOException {
+        Path snapshot = write();
+        byte[] edited = TestFieldConfig.JSON.replace("TERM0001", "TERM0002").getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(json.length, edited.length);
+        assertNull(ConfigSnapshot.load(edited, snapshot, ISO8583TestGenerator.TEST_CATEGORIES));
+    }
+
+    @Test
+    void staleWhenWrittenByAnotherFormatVersion() throws IOException {
+        Path snapshot = write();
+        byte[] bytes = Files.readAllBytes(snapshot);
+        ByteBuffer.wrap(bytes).putInt(8, ConfigSnapshot.FORMAT_VERSION + 1);
+        Files.write(snapshot, bytes);
+
+        assertNull(ConfigSnapshot.load(json, snapshot, ISO8583TestGenerator.TEST_CATEGORIES));
+    }
+
+    @Test
+    void cutShortOrMissingIsStale() throws IOException {
+        Path snapshot = write();
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertNull(ConfigSnapshot.load(json, snapshot, ISO8583TestGenerator.TEST_CATEGORIES));
+        assertNull(ConfigSnapshot.load(json, dir.resolve("none.snapshot"), ISO8583TestGenerator.TEST_CATEGORIES));
+    }
+
+    @Test
+    void corruptCountIsStale() throws IOException {
+        Path snapshot = write();
+        byte[] bytes = Files.readAllBytes(snapshot);
+        // Skip the header, the category names, the field count and the first field's leading elements
+        ByteBuffer in = ByteBuffer.wrap(bytes).position(24);
+        for (int i = in.getShort(); i > 0; i--) {
+            ConfigSnapshot.readString(in);
+        }
+        in.getShort();
+        ConfigSnapshot.readString(in);
+        ConfigSnapshot.readString(in);
+        in.position(in.position() + 2 + 2 * Integer.BYTES);
+        for (int i = 0; i < 4; i++) {
+            ConfigSnapshot.readString(in);
+        }
+        // The count of the first field's invalid values
+        in.putShort(in.position(), (short) -1);
+        Files.write(snapshot, bytes);
+
+        assertNull(ConfigSnapshot.load(json, snapshot, ISO8583TestGenerator.TEST_CATEGORIES));
+    }
+
+    private Path write() throws IOException {
+        Path snapshot = dir.resolve("config.snapshot");
+        assertEquals(7, ConfigSnapshot.write(json, TestFieldConfig.json(), snapshot));
+        return snapshot;
+    }
+}
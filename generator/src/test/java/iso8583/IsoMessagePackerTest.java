@@ -0,0 +1,89 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IsoMessagePackerTest {
+
+    private final FieldSpecs fieldSpecs = TestFieldConfig.fieldSpecs();
+    private final Map<String, String> fieldData = TestFieldConfig.validMessage(fieldSpecs);
+
+    @Test
+    void packsAsciiWithComputedBitmapsAndLengthPrefixes() {
+        IsoMessagePacker packer = new IsoMessagePacker(fieldSpecs, IsoMessagePacker.Encoding.ASCII);
+        long primary = 1L << 63 | bit(2) | bit(3) | bit(7) | bit(41) | bit(52) | bit(55);
+        long secondary = 1L << (128 - 70);
+        String expected = "0200" + String.format("%016X%016X", primary, secondary) +
+                          "164111111111111111" + "000000" + "1231235959" + "TERM0001" + "1010101011110000" +
+                          "0149F2608A1B2C3D4" + "301";
+
+        assertEquals(expected, packer.toWireString(packer.pack(fieldData)));
+    }
+
+    @Test
+    void layoutLocatesEveryElement() {
+        IsoMessagePacker packer = new IsoMessagePacker(fieldSpecs, IsoMessagePacker.Encoding.ASCII);
+        IsoMessagePacker.Layout layout = packer.layout(fieldData);
+
+        assertEquals(10, layout.size());
+        assertEquals("MTI", layout.getKey(0));
+        assertEquals("PrimaryBitmap", layout.getKey(1));
+        assertEquals("SecondaryBitmap", layout.getKey(2));
+        // Field 2 follows the MTI and both bitmaps, its value just past the 2 digit prefix
+        assertEquals("2", layout.getKey(3));
+        assertTrue(layout.hasLengthPrefix(3));
+        assertEquals(36, layout.getStart(3));
+        assertEquals(38, layout.getValueStart(3));
+        assertEquals(54, layout.getValueEnd(3));
+        assertEquals(16, layout.getValueLength(3));
+        assertEquals("3", layout.getKey(4));
+        assertFalse(layout.hasLengthPrefix(4));
+        assertEquals(54, layout.getStart(4));
+        assertEquals("70", layout.getKey(9));
+        assertEquals(packer.pack(fieldData).limit(), layout.getValueEnd(9));
+    }
+
+    @Test
+    void bcdRoundTripsThroughTheReferenceParser() throws Exception {
+        IsoMessagePacker packer = new IsoMessagePacker(fieldSpecs, IsoMessagePacker.Encoding.BCD);
+        ByteBuffer packed = packer.pack(fieldData);
+        // MTI and field 2 packed two digits per byte, bitmaps as 8 raw bytes
+        assertEquals(0x02, packed.get(0));
+        assertEquals(0x00, packed.get(1));
+        assertEquals(0x16, packed.get(18));
+
+        Map<String, String> parsed = new ReferenceIsoParser(fieldSpecs, IsoMessagePacker.Encoding.BCD).parse(packed);
+
+        assertEquals(fieldData, parsed);
+    }
+
+    @Test
+    void bcdWireStringIsUppercaseHex() {
+        IsoMessagePacker packer = new IsoMessagePacker(fieldSpecs, IsoMessagePacker.Encoding.BCD);
+        String wire = packer.toWireString(packer.pack(fieldData));
+
+        assertTrue(wire.startsWith("0200E2"));
+        assertTrue(wire.matches("[0-9A-F]+"));
+    }
+
+    @Test
+    void bcdRefusesValuesItCannotCarry() {
+        // The runner reports such messages as not sent rather than as rejected by the parser
+        IsoMessagePacker packer = new IsoMessagePacker(fieldSpecs, IsoMessagePacker.Encoding.BCD);
+
+        assertThrows(IllegalArgumentException.class, () -> packer.pack(FieldDataOverlay.of(fieldData, "3", "00000A")));
+        assertThrows(IllegalArgumentException.class, () -> packer.pack(FieldDataOverlay.of(fieldData, "52", "2")));
+        assertThrows(IllegalArgumentException.class, () -> packer.pack(FieldDataOverlay.of(fieldData, "55", "GHIJ")));
+    }
+
+    private static long bit(int fieldNumber) {
+        return 1L << (64 - fieldNumber);
+    }
+}
@@ -0,0 +1,45 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentileMicros(99));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 100; micros++) {
+            histogram.recordNanos(micros * 1_000L);
+        }
+
+        assertEquals(100, histogram.getTotalCount());
+        assertEquals(50, histogram.getValueAtPercentileMicros(50));
+        assertEquals(99, histogram.getValueAtPercentileMicros(99));
+        assertEquals(100, histogram.getValueAtPercentileMicros(100));
+    }
+
+    @Test
+    void percentilesAreWithinOnePercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 1_000_000; micros++) {
+            histogram.recordNanos(micros * 1_000L);
+        }
+
+        for (double percentile : new double[] {50, 90, 99, 99.9}) {
+            long exact = (long) (percentile * 10_000);
+            long reported = histogram.getValueAtPercentileMicros(percentile);
+            assertEquals(exact, reported, exact * 0.01, "p" + percentile);
+        }
+        assertEquals(1_000_000, histogram.getMaxMicros());
+        assertEquals(1_000_000, histogram.getValueAtPercentileMicros(100));
+    }
+}
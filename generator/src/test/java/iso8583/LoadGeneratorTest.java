@@ -0,0 +1,48 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoadGeneratorTest {
+
+    @Test
+    void errorStatusesFromTheParserAreRejectionsNotTransportErrors() {
+        LoadGenerator generator = new LoadGenerator(10_000, 0, 30, 0.0, 1);
+        int[] sends = {0};
+        LoadGenerator.Results results = generator.run("valid", List.of(), message -> {
+            switch (sends[0]++ % 3) {
+                case 0:
+                    return CompletableFuture.completedFuture("[]");
+                case 1:
+                    // As the HTTP client fails a 400: the status exception wrapped by its async chain
+                    return CompletableFuture.failedFuture(new UncheckedIOException(
+                            new ParserHttpClient.StatusException(400, "Bad Request")));
+                default:
+                    return CompletableFuture.failedFuture(new ConnectException("Connection refused"));
+            }
+        }, 1_000);
+
+        String report = results.format(10_000, 0.0);
+        assertTrue(report.contains("Messages Sent: 30\n"), report);
+        assertTrue(report.contains("Responses Received: 20\n"), report);
+        assertTrue(report.contains("Transport Errors: 10\n"), report);
+        assertTrue(report.contains("Parser Rejections: 10\n"), report);
+    }
+
+    @Test
+    void overloadStatusesAreTransportErrors() {
+        LoadGenerator generator = new LoadGenerator(10_000, 0, 5, 0.0, 1);
+        LoadGenerator.Results results = generator.run("valid", List.of(), message -> 
+                CompletableFuture.failedFuture(new ParserHttpClient.StatusException(503, "Service Unavailable")), 1_000);
+
+        String report = results.format(10_000, 0.0);
+        assertTrue(report.contains("Transport Errors: 5\n"), report);
+        assertTrue(report.contains("Parser Rejections: 0\n"), report);
+    }
+}
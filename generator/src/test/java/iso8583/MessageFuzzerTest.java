@@ -0,0 +1,123 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageFuzzerTest {
+
+    private final FieldSpecs fieldSpecs = TestFieldConfig.fieldSpecs();
+    private final Map<String, String> fieldData = TestFieldConfig.validMessage(fieldSpecs);
+    private final IsoMessagePacker packer = new IsoMessagePacker(fieldSpecs, IsoMessagePacker.Encoding.ASCII);
+    private final FieldRuleOracle oracle = new FieldRuleOracle(fieldSpecs, IsoMessagePacker.Encoding.ASCII);
+
+    @Test
+    void shrinksWhatALenientParserAccepts() throws InterruptedException {
+        // Accepts anything that starts with a numeric MTI
+        IsoParser lenient = message -> {
+            if (message.remaining() < 4) {
+                throw new IllegalArgumentException("No MTI");
+            }
+            for (int i = 0; i < 4; i++) {
+                byte b = message.get();
+                if (b < '0' || b > '9') {
+                    throw new IllegalArgumentException("Bad MTI");
+                }
+            }
+            return Map.of();
+        };
+        byte[] baseline = baseline();
+        MessageFuzzer fuzzer = new MessageFuzzer(fieldSpecs, IsoMessagePacker.Encoding.ASCII, baseline,
+                                                 packer.layout(fieldData), MessageFuzzer.inProcessTarget(lenient), 50);
+
+        MessageFuzzer.Results results = fuzzer.run(7, 2, 5_000, Long.MAX_VALUE);
+
+        assertEquals(5_000, results.cases.sum());
+        assertFalse(results.failures.isEmpty());
+        for (MessageFuzzer.Failure failure : results.failures.values()) {
+            assertTrue(failure.signature.startsWith("ACCEPTED INVALID ("), failure.signature);
+            assertNull(failure.crashSignature);
+            assertFalse(failure.mutations.isEmpty(), failure.signature);
+            assertTrue(failure.reproducer.length <= failure.originalLength, failure.signature);
+            // The shrunk case still breaks the rule the failure is named after
+            String violation = oracle.violation(failure.reproducer, failure.reproducer.length);
+            assertEquals(failure.oracleReason, violation.split(":")[0], failure.signature);
+        }
+        // Failures are keyed on the broken rule only, not on the mutations that happened to break it
+        List<String> reasons = new ArrayList<>();
+        for (MessageFuzzer.Failure failure : results.failures.values()) {
+            reasons.add(failure.oracleReason);
+        }
+        assertEquals(reasons.size(), reasons.stream().distinct().count());
+        assertTrue(results.format(7, 2).contains("Shrunk to: "));
+    }
+
+    @Test
+    void groupsCrashesBySignature() throws InterruptedException {
+        byte[] baseline = baseline();
+        IsoParser crashing = message -> {
+            if (message.remaining() != baseline.length) {
+                throw new IllegalStateException("Unexpected length " + message.remaining());
+            }
+            return Map.of();
+        };
+        MessageFuzzer fuzzer = new MessageFuzzer(fieldSpecs, IsoMessagePacker.Encoding.ASCII, baseline,
+                                                 packer.layout(fieldData), MessageFuzzer.inProcessTarget(crashing), 50);
+
+        MessageFuzzer.Results results = fuzzer.run(3, 1, 2_000, Long.MAX_VALUE);
+
+        MessageFuzzer.Failure crash = results.failures.get("CRASHED java.lang.IllegalStateException");
+        assertNotNull(crash, results.failures.keySet().toString());
+        assertTrue(crash.count.sum() > 1);
+        assertTrue(crash.crashDetail.startsWith("java.lang.IllegalStateException: Unexpected length"));
+    }
+
+    @Test
+    void oracleJudgesByTheFieldRules() {
+        byte[] baseline = baseline();
+        assertNull(oracle.violation(baseline, baseline.length));
+
+        String message = new String(baseline, 0, baseline.length, StandardCharsets.US_ASCII);
+        assertEquals("Invalid test value in field 2: ABCDEFGHIJKLMNOP",
+                     violation(message.replace("164111111111111111", "16ABCDEFGHIJKLMNOP")));
+        assertEquals("Validation rules broken by field 7: 1332235959",
+                     violation(message.replace("1231235959", "1332235959")));
+        assertEquals("Length prefix of field 2 exceeds max_length 19: 20",
+                     violation(message.replace("164111111111111111", "2041111111111111111111")));
+        assertEquals("Message ends in field 70", violation(message.substring(0, message.length() - 1)));
+        assertEquals("Bytes after the last field flagged in the bitmaps: 1", violation(message + "1"));
+        assertEquals("Non-digit in MTI: 02X0", violation("02X0" + message.substring(4)));
+    }
+
+    @Test
+    void refusesABaselineThatBreaksTheRules() {
+        byte[] broken = (new String(baseline(), StandardCharsets.US_ASCII) + "X").getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(IllegalArgumentException.class, () -> new MessageFuzzer(
+                fieldSpecs, IsoMessagePacker.Encoding.ASCII, broken, packer.layout(fieldData),
+                MessageFuzzer.inProcessTarget(message -> Map.of()), 10));
+    }
+
+    private String violation(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.US_ASCII);
+        return oracle.violation(bytes, bytes.length);
+    }
+
+    private byte[] baseline() {
+        ByteBuffer packed = packer.pack(fieldData);
+        byte[] baseline = new byte[packed.remaining()];
+        packed.get(baseline);
+        return baseline;
+    }
+}
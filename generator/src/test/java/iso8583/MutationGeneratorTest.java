@@ -0,0 +1,80 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MutationGeneratorTest {
+
+    private final FieldSpecs fieldSpecs = TestFieldConfig.fieldSpecs();
+    private final Map<String, String> baseline = TestFieldConfig.validMessage(fieldSpecs);
+
+    @Test
+    void aritiesCountEveryCombinationOfInvalidValues() {
+        // Fields 2 (two invalid values), 3, 7 and 41 (one each) can be made invalid
+        assertEquals(5, new MutationGenerator(fieldSpecs, baseline, 1).size());
+        assertEquals(9, new MutationGenerator(fieldSpecs, baseline, 2).size());
+        assertEquals(7, new MutationGenerator(fieldSpecs, baseline, 3).size());
+        assertEquals(2, new MutationGenerator(fieldSpecs, baseline, 4).size());
+        assertThrows(IllegalArgumentException.class, () -> new MutationGenerator(fieldSpecs, baseline, 5));
+    }
+
+    @Test
+    void streamProducesEachCaseOnce() {
+        MutationGenerator generator = new MutationGenerator(fieldSpecs, baseline, 2);
+        List<String> cases = generator.stream().map(MutationGenerator.Mutation::describe).collect(Collectors.toList());
+
+        assertEquals(generator.size(), cases.size());
+        assertEquals(cases.size(), new HashSet<>(cases).size());
+        assertEquals("2:invalid_type + 3:invalid_length_short", cases.get(0));
+        assertEquals("7:invalid_datetime + 41:invalid_special_chars", cases.get(cases.size() - 1));
+    }
+
+    @Test
+    void parallelStreamProducesTheSameCases() {
+        MutationGenerator generator = new MutationGenerator(fieldSpecs, baseline, 3);
+        Set<String> sequential = generator.stream().map(MutationGenerator.Mutation::describe).collect(Collectors.toSet());
+        Set<String> parallel = generator.stream().parallel().map(MutationGenerator.Mutation::describe)
+                                        .collect(Collectors.toSet());
+
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void fieldDataOverlaysTheInvalidValues() {
+        MutationGenerator.Mutation mutation = new MutationGenerator(fieldSpecs, baseline, 2).iterator().next();
+        Map<String, String> fieldData = mutation.fieldData();
+
+        assertEquals("ABCDEFGHIJKLMNOP", fieldData.get("2"));
+        assertEquals("00000", fieldData.get("3"));
+        assertEquals(baseline.get("7"), fieldData.get("7"));
+        assertEquals(baseline.size(), fieldData.size());
+        assertEquals("invalid_type_value", mutation.getCategory(0));
+    }
+
+    @Test
+    void leavesOutSubfieldsThePackerDropsAnyway() throws Exception {
+        ObjectNode json = TestFieldConfig.json();
+        json.set("41.1", new ObjectMapper().readTree("""
+                {"name": "Terminal Prefix", "format": "fixed", "type": "alphanumeric", "length": 4,
+                 "validExample": "TERM", "validationRules": {"exactLength": 4},
+                 "invalid_special_chars_value": "!@#$", "invalid_special_chars_description": "Special characters"}
+                """));
+        FieldSpecs withSubfield = FieldSpecs.compile(json, ISO8583TestGenerator.TEST_CATEGORIES);
+
+        assertFalse(IsoMessagePacker.packs(withSubfield.byKey("41.1")));
+        assertTrue(IsoMessagePacker.packs(withSubfield.byKey("41")));
+        assertEquals(5, new MutationGenerator(withSubfield, TestFieldConfig.validMessage(withSubfield), 1).size());
+    }
+}
@@ -0,0 +1,69 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParserTransportTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final FieldSpecs fieldSpecs = TestFieldConfig.fieldSpecs();
+    private final Map<String, String> fieldData = TestFieldConfig.validMessage(fieldSpecs);
+
+    @Test
+    void loadPicksTheReferenceParserWithoutALibrary() {
+        InProcessParserTransport transport = 
+                InProcessParserTransport.load(null, fieldSpecs, IsoMessagePacker.Encoding.ASCII);
+
+        assertInstanceOf(ReferenceIsoParser.class, transport.getParser());
+    }
+
+    @Test
+    void inProcessAnswersInTheServiceFormat() throws Exception {
+        for (IsoMessagePacker.Encoding encoding : IsoMessagePacker.Encoding.values()) {
+            IsoMessagePacker packer = new IsoMessagePacker(fieldSpecs, encoding);
+            InProcessParserTransport transport = InProcessParserTransport.load("reference", fieldSpecs, encoding);
+
+            JsonNode response = MAPPER.readTree(transport.send(packer.toWireString(packer.pack(fieldData))));
+
+            assertTrue(response.isArray(), encoding + ": " + response);
+            assertEquals(fieldData.size(), response.size());
+            assertEquals("MTI", response.get(0).get("dataElementId").asText());
+            assertEquals("0200", response.get(0).get("value").asText());
+        }
+    }
+
+    @Test
+    void inProcessRejectsInvalidValuesLikeTheService() throws Exception {
+        IsoMessagePacker packer = new IsoMessagePacker(fieldSpecs, IsoMessagePacker.Encoding.ASCII);
+        InProcessParserTransport transport = 
+                InProcessParserTransport.load(null, fieldSpecs, IsoMessagePacker.Encoding.ASCII);
+
+        Map<String, String> invalidDate = FieldDataOverlay.of(fieldData, "7", "1335251060");
+        String response = transport.send(packer.toWireString(packer.pack(invalidDate)));
+
+        assertEquals("ISOParserException", MAPPER.readTree(response).get("exception").asText());
+    }
+
+    @Test
+    void loopbackGoesOverHttpToTheSameParser() throws Exception {
+        IsoMessagePacker packer = new IsoMessagePacker(fieldSpecs, IsoMessagePacker.Encoding.ASCII);
+        InProcessParserTransport inProcess = 
+                InProcessParserTransport.load(null, fieldSpecs, IsoMessagePacker.Encoding.ASCII);
+        String message = packer.toWireString(packer.pack(fieldData));
+        try (LoopbackParserTransport loopback = new LoopbackParserTransport(
+                inProcess, 2, false, Duration.ofSeconds(5), Duration.ofSeconds(5))) {
+
+            assertEquals(inProcess.send(message), loopback.send(message));
+            assertEquals(inProcess.send(message), loopback.sendAsync(message).get());
+        }
+    }
+}
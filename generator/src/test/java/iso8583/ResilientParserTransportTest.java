@@ -0,0 +1,66 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientParserTransportTest {
+
+    @Test
+    void retriesAnOccasionalFailureWithoutOpeningTheCircuit() throws IOException {
+        AtomicInteger sends = new AtomicInteger();
+        // Fails one send in three
+        ParserTransport flaky = message -> {
+            if (sends.incrementAndGet() % 3 == 0) {
+                throw new IOException("Connection reset");
+            }
+            return "ok " + message;
+        };
+        CircuitBreaker breaker = new CircuitBreaker(2, 60_000);
+        ResilientParserTransport transport = new ResilientParserTransport(flaky, null, breaker, 1, 1);
+
+        for (int i = 0; i < 30; i++) {
+            assertEquals("ok " + i, transport.send(String.valueOf(i)));
+        }
+        assertEquals(0, breaker.getTimesOpened());
+        assertEquals(0, breaker.getConsecutiveFailures());
+        assertTrue(transport.summary().startsWith("Transport: 14 retries, 0 sends without a response"),
+                   transport.summary());
+    }
+
+    @Test
+    void doesNotRetryAParserRejection() {
+        AtomicInteger sends = new AtomicInteger();
+        ParserTransport rejecting = message -> {
+            sends.incrementAndGet();
+            throw new ParserHttpClient.StatusException(400, "Bad request");
+        };
+        ResilientParserTransport transport =
+                new ResilientParserTransport(rejecting, null, new CircuitBreaker(1, 60_000), 3, 1);
+
+        assertThrows(ParserHttpClient.StatusException.class, () -> transport.send("0200"));
+        assertThrows(ParserHttpClient.StatusException.class, () -> transport.send("0200"));
+        assertEquals(2, sends.get());
+    }
+
+    @Test
+    void failsFastWhileTheCircuitIsOpen() {
+        AtomicInteger sends = new AtomicInteger();
+        ParserTransport down = message -> {
+            sends.incrementAndGet();
+            throw new IOException("Connection refused");
+        };
+        ResilientParserTransport transport =
+                new ResilientParserTransport(down, null, new CircuitBreaker(2, 60_000), 1, 1);
+
+        assertThrows(TransportException.class, () -> transport.send("0200"));
+        TransportException e = assertThrows(TransportException.class, () -> transport.send("0200"));
+        assertTrue(e.getMessage().startsWith("Circuit breaker open"), e.getMessage());
+        assertEquals(2, sends.get());
+    }
+}
@@ -0,0 +1,103 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResponseCacheTest {
+
+    @Test
+    void identicalMessagesAreSentOnce() throws IOException {
+        ResponseCache cache = new ResponseCache();
+        AtomicInteger sends = new AtomicInteger();
+        ResponseCache.Sender sender = message -> "response " + sends.incrementAndGet();
+
+        assertEquals("response 1", cache.send("A", sender));
+        assertEquals("response 1", cache.send("A", sender));
+        assertEquals("response 2", cache.send("B", sender));
+        assertEquals(2, sends.get());
+        assertEquals(3, cache.getRequests());
+        assertEquals(1, cache.getSavedSends());
+    }
+
+    @Test
+    void callersWaitForAnIdenticalSendInFlight() throws Exception {
+        ResponseCache cache = new ResponseCache();
+        AtomicInteger sends = new AtomicInteger();
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> cache.send("A", message -> {
+                sends.incrementAndGet();
+                sending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return "response";
+            }));
+            sending.await();
+            Future<String> second = executor.submit(() -> cache.send("A", message -> {
+                sends.incrementAndGet();
+                return "second response";
+            }));
+            while (cache.getSavedSends() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertEquals("response", first.get());
+            assertEquals("response", second.get());
+            assertEquals(1, sends.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failedSendsAreNotCached() throws IOException {
+        ResponseCache cache = new ResponseCache();
+
+        assertThrows(IOException.class, () -> cache.send("A", message -> {
+            throw new IOException("Connection refused");
+        }));
+        assertEquals("response", cache.send("A", message -> "response"));
+        assertEquals(0, cache.getSavedSends());
+    }
+
+    @Test
+    void messagesWithTheSameHashAreNotConfused() throws IOException {
+        ResponseCache cache = new ResponseCache();
+        // "Aa" and "BB" share a String hash code
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        assertEquals("response Aa", cache.send("Aa", message -> "response " + message));
+        assertEquals("response BB", cache.send("BB", message -> "response " + message));
+        assertEquals(0, cache.getSavedSends());
+    }
+
+    @Test
+    void sendsPastTheBoundAreNotCached() throws IOException {
+        ResponseCache cache = new ResponseCache(2);
+        AtomicInteger sends = new AtomicInteger();
+        ResponseCache.Sender sender = message -> "response " + sends.incrementAndGet();
+
+        cache.send("A", sender);
+        cache.send("B", sender);
+        assertEquals("response 3", cache.send("C", sender));
+        assertEquals("response 4", cache.send("C", sender));
+        // Messages cached before the bound was reached are still answered from the cache
+        assertEquals("response 1", cache.send("A", sender));
+        assertEquals(1, cache.getSavedSends());
+    }
+}
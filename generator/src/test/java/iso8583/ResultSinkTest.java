@@ -0,0 +1,114 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultSinkTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void textReportCountsOnlyTestsWithAResult() throws IOException {
+        Path file = dir.resolve("results.txt");
+        try (TextResultSink sink = new TextResultSink(file)) {
+            writeRun(sink);
+        }
+        String report = Files.readString(file);
+
+        assertTrue(report.contains("Valid Data Test: PASSED\n"), report);
+        assertTrue(report.contains("  - invalid_type: PASSED (Contains non-numeric characters)\n    Recovery: PASSED\n"),
+                   report);
+        assertTrue(report.contains("  - invalid_empty: TRANSPORT ERROR (Empty raw data)\n    Recovery: FAILED\n"), 
+                   report);
+        assertTrue(report.contains("  Summary: 2/3 tests passed (66.7%), 1 transport errors\n"), report);
+        assertTrue(report.contains("  - invalid_type: NOT SENT (Contains letters)\n    Recovery: NOT SENT\n"), report);
+        assertTrue(report.contains("  Summary: no parser results, 2 not sent\n"), report);
+        assertTrue(report.contains("Total Tests: 3\nPassed Tests: 2\nPass Rate: 66.7%\n"), report);
+        assertTrue(report.contains("Transport Errors: 1 "), report);
+        assertTrue(report.contains("Not Sent: 2 "), report);
+        assertTrue(report.contains("Sends Saved By Cache: 4 of 9\n"), report);
+    }
+
+    @Test
+    void jsonlHasOneRecordPerCase() throws IOException {
+        Path file = dir.resolve("results.jsonl");
+        try (JsonlResultSink sink = new JsonlResultSink(file)) {
+            writeRun(sink);
+        }
+        List<String> lines = Files.readAllLines(file);
+        ObjectMapper mapper = new ObjectMapper();
+
+        assertEquals(5, lines.size());
+        assertEquals("valid", mapper.readTree(lines.get(0)).get("type").asText());
+        JsonNode transportError = mapper.readTree(lines.get(2));
+        assertEquals("2", transportError.get("field").asText());
+        assertEquals("invalid_empty", transportError.get("category").asText());
+        assertTrue(transportError.get("transportError").asBoolean());
+        assertTrue(mapper.readTree(lines.get(3)).get("recoveryNotSent").asBoolean());
+        JsonNode summary = mapper.readTree(lines.get(4));
+        assertEquals(3, summary.get("total").asInt());
+        assertEquals(2, summary.get("notSent").asInt());
+        assertEquals(4, summary.get("cacheSavedSends").asInt());
+    }
+
+    @Test
+    void junitXmlHasASuitePerField() throws IOException {
+        Path file = dir.resolve("results.xml");
+        try (JUnitXmlResultSink sink = new JUnitXmlResultSink(file)) {
+            writeRun(sink);
+        }
+        String xml = Files.readString(file);
+
+        assertTrue(xml.contains("<testsuite name=\"Field 2: Primary &quot;Account&quot; Number\" tests=\"4\" " +
+                                "failures=\"1\" errors=\"1\" skipped=\"0\">"), xml);
+        assertTrue(xml.contains("<testsuite name=\"Field 3: Processing Code\" tests=\"2\" failures=\"0\" errors=\"0\" " +
+                                "skipped=\"2\">"), xml);
+        assertTrue(xml.contains("<error message=\"No response from the parser\"/>"), xml);
+        assertTrue(xml.endsWith("</testsuites>\n"), xml);
+    }
+
+    @Test
+    void junitXmlKeepsCharactersOutsideTheBmp() throws IOException {
+        // Escaped a char at a time, so the surrogate pair is split across appends
+        String name = "Card \uD83D\uDCB3 Data";
+        Path file = dir.resolve("emoji.xml");
+        try (JUnitXmlResultSink sink = new JUnitXmlResultSink(file)) {
+            sink.validBaseline(true);
+            sink.fieldStarted("2", name);
+            sink.caseFinished(new ResultSink.CaseResult("2", name, "invalid_type", "Contains \uD83D\uDCB3", 
+                                                        true, true, false, false, false, false));
+            sink.fieldFinished();
+            sink.finish(2, 2, 0, 0, -1, 0);
+        }
+        String xml = Files.readString(file);
+
+        assertTrue(xml.contains("<testsuite name=\"Field 2: " + name + "\""), xml);
+    }
+
+    private static void writeRun(ResultSink sink) throws IOException {
+        sink.validBaseline(true);
+        sink.fieldStarted("2", "Primary \"Account\" Number");
+        sink.caseFinished(new ResultSink.CaseResult("2", "Primary \"Account\" Number", "invalid_type", 
+                                                    "Contains non-numeric characters", true, true, 
+                                                    false, false, false, false));
+        sink.caseFinished(new ResultSink.CaseResult("2", "Primary \"Account\" Number", "invalid_empty", 
+                                                    "Empty raw data", false, false, true, false, false, false));
+        sink.fieldFinished();
+        sink.fieldStarted("3", "Processing Code");
+        sink.caseFinished(new ResultSink.CaseResult("3", "Processing Code", "invalid_type", "Contains letters", 
+                                                    false, false, false, false, true, true));
+        sink.fieldFinished();
+        sink.finish(3, 2, 1, 2, 9, 4);
+    }
+}
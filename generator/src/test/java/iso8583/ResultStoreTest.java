@@ -0,0 +1,87 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResultStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void fingerprintChangesWithAnyPart() {
+        long fingerprint = ResultStore.fingerprint("run", "2", "{\"format\":\"llvar\"}");
+
+        assertEquals(fingerprint, ResultStore.fingerprint("run", "2", "{\"format\":\"llvar\"}"));
+        assertNotEquals(fingerprint, ResultStore.fingerprint("run", "2", "{\"format\":\"lllvar\"}"));
+        assertNotEquals(fingerprint, ResultStore.fingerprint("other run", "2", "{\"format\":\"llvar\"}"));
+        // Parts are separated, so moving a character from one part to the next is a different fingerprint
+        assertNotEquals(ResultStore.fingerprint("ab", "c"), ResultStore.fingerprint("a", "bc"));
+    }
+
+    @Test
+    void storedResultsAreFoundByLaterRuns() throws IOException {
+        Path file = dir.resolve("store.bin");
+        byte[] results = {0, ResultStore.REJECTED | ResultStore.RECOVERED, 4, ResultStore.RECOVERED};
+        try (ResultStore store = ResultStore.open(file)) {
+            assertEquals(0, store.size());
+            store.put(1L, results);
+            store.put(2L, new byte[] {0, 0});
+        }
+
+        try (ResultStore store = ResultStore.open(file)) {
+            assertEquals(2, store.size());
+            assertArrayEquals(results, store.get(1L));
+            assertNull(store.get(3L));
+            // A later record for the same fingerprint replaces the earlier one
+            store.put(1L, new byte[] {0, 0});
+        }
+
+        try (ResultStore store = ResultStore.open(file)) {
+            assertArrayEquals(new byte[] {0, 0}, store.get(1L));
+        }
+    }
+
+    @Test
+    void recordCutShortIsDropped() throws IOException {
+        Path file = dir.resolve("store.bin");
+        try (ResultStore store = ResultStore.open(file)) {
+            store.put(1L, new byte[] {0, ResultStore.REJECTED});
+            store.put(2L, new byte[] {0, ResultStore.REJECTED});
+        }
+        try (var channel = Files.newByteChannel(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+
+        try (ResultStore store = ResultStore.open(file)) {
+            assertEquals(1, store.size());
+            assertNull(store.get(2L));
+            store.put(3L, new byte[] {0, ResultStore.RECOVERED});
+        }
+        try (ResultStore store = ResultStore.open(file)) {
+            assertEquals(2, store.size());
+            assertArrayEquals(new byte[] {0, ResultStore.RECOVERED}, store.get(3L));
+        }
+    }
+
+    @Test
+    void otherFilesAreStartedAfresh() throws IOException {
+        Path file = dir.resolve("store.bin");
+        Files.writeString(file, "not a result store");
+
+        try (ResultStore store = ResultStore.open(file)) {
+            assertEquals(0, store.size());
+        }
+        assertEquals(8, Files.size(file));
+    }
+}
@@ -0,0 +1,100 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardMergerTest {
+
+    private final FieldSpecs fieldSpecs = TestFieldConfig.fieldSpecs();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void mergedShardsMatchAnUnshardedRun() throws IOException {
+        Path unsharded = writeRun(dir.resolve("results.jsonl"), null, 10, 4);
+        Path first = writeRun(dir.resolve("results.shard-1-of-2.jsonl"), Shard.parse("1/2"), 6, 3);
+        Path second = writeRun(dir.resolve("results.shard-2-of-2.jsonl"), Shard.parse("2/2"), 4, 1);
+
+        Path merged = dir.resolve("merged.jsonl");
+        int tests;
+        try (JsonlResultSink out = new JsonlResultSink(merged)) {
+            tests = ShardMerger.merge(List.of(second, first), fieldSpecs, out);
+        }
+
+        assertEquals(cases().size() * 2, tests);
+        assertEquals(Files.readAllLines(unsharded), Files.readAllLines(merged));
+    }
+
+    @Test
+    void refusesAMissingShard() throws IOException {
+        Path first = writeRun(dir.resolve("results.shard-1-of-2.jsonl"), Shard.parse("1/2"), 6, 3);
+
+        IOException e = assertThrows(IOException.class, () -> merge(List.of(first)));
+        assertTrue(e.getMessage().startsWith("Missing results for "), e.getMessage());
+    }
+
+    @Test
+    void refusesAShardMergedTwice() throws IOException {
+        Path first = writeRun(dir.resolve("results.shard-1-of-2.jsonl"), Shard.parse("1/2"), 6, 3);
+
+        IOException e = assertThrows(IOException.class, () -> merge(List.of(first, first)));
+        assertTrue(e.getMessage().endsWith("appears in more than one shard file"), e.getMessage());
+    }
+
+    private void merge(List<Path> files) throws IOException {
+        try (JsonlResultSink out = new JsonlResultSink(dir.resolve("merged.jsonl"))) {
+            ShardMerger.merge(files, fieldSpecs, out);
+        }
+    }
+
+    /**
+     * Writes the cases a shard owns, numbered in config order as the generator does, with made-up results
+     */
+    private Path writeRun(Path file, Shard shard, long cacheRequests, long cacheSavedSends) throws IOException {
+        int total = 0;
+        int passed = 0;
+        int transportErrors = 0;
+        try (JsonlResultSink sink = new JsonlResultSink(file)) {
+            sink.validBaseline(true);
+            long caseOrdinal = 0;
+            for (ResultSink.CaseResult result : cases()) {
+                if (shard == null || shard.owns(caseOrdinal++)) {
+                    sink.caseFinished(result);
+                    total += result.testsWithResult();
+                    transportErrors += result.transportErrors();
+                    passed += (result.passed ? 1 : 0) + (result.recovered ? 1 : 0);
+                }
+            }
+            sink.finish(total, passed, transportErrors, 0, cacheRequests, cacheSavedSends);
+        }
+        return file;
+    }
+
+    private List<ResultSink.CaseResult> cases() {
+        List<ResultSink.CaseResult> cases = new ArrayList<>();
+        int n = 0;
+        for (FieldSpec spec : fieldSpecs.all()) {
+            for (int i = 0; i < fieldSpecs.getTestCategories().size(); i++) {
+                if (spec.getInvalidValue(i) != null) {
+                    boolean transportError = n % 5 == 4;
+                    cases.add(new ResultSink.CaseResult(
+                            spec.getKey(), spec.getName(), fieldSpecs.getTestCategories().get(i).replace("_value", ""),
+                            "case " + n, !transportError && n % 3 != 0, true, transportError, false, false, false));
+                    n++;
+                }
+            }
+        }
+        return cases;
+    }
+}
@@ -0,0 +1,33 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardTest {
+
+    @Test
+    void everyCaseHasExactlyOneOwner() {
+        Shard[] shards = {Shard.parse("1/3"), Shard.parse("2/3"), Shard.parse(" 3 / 3 ")};
+        for (long ordinal = 0; ordinal < 20; ordinal++) {
+            int owners = 0;
+            for (Shard shard : shards) {
+                owners += shard.owns(ordinal) ? 1 : 0;
+            }
+            assertEquals(1, owners, "case " + ordinal);
+        }
+        assertTrue(shards[1].owns(1));
+        assertFalse(shards[1].owns(2));
+        assertEquals(".shard-2-of-3", shards[1].fileSuffix());
+    }
+
+    @Test
+    void rejectsMalformedSpecs() {
+        for (String spec : new String[] {"0/2", "3/2", "1/0", "2", "/2", "a/b"}) {
+            assertThrows(IllegalArgumentException.class, () -> Shard.parse(spec), spec);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestCaseGeneratorTest {
+
+    private static final String BASE_CONFIG = """
+            {
+              "2": {"name": "Primary Account Number", "format": "llvar", "type": "numeric", "max_length": 19},
+              "7": {"name": "Transmission Date and Time", "format": "fixed", "type": "numeric", "length": 10,
+                    "SampleData": "1231235959"},
+              "13": {"name": "Local Date", "format": "fixed", "type": "alphanumeric", "length": 4,
+                     "SampleData": "1231"},
+              "41": {"name": "Card Acceptor Terminal ID", "format": "fixed", "type": "alphanumeric", "length": 8},
+              "55": {"name": "ICC Data", "format": "lllvar", "type": "hex", "max_length": 255}
+            }
+            """;
+
+    @Test
+    void sameSeedGivesTheSameCases() throws IOException {
+        assertEquals(render(new TestCaseGenerator(baseConfig(), 42)),
+                     render(new TestCaseGenerator(baseConfig(), 42)));
+        assertEquals(new TestCaseGenerator(baseConfig(), 42).extendedConfig(),
+                     new TestCaseGenerator(baseConfig(), 42).extendedConfig());
+        assertNotEquals(render(new TestCaseGenerator(baseConfig(), 42)),
+                        render(new TestCaseGenerator(baseConfig(), 43)));
+    }
+
+    @Test
+    void aFieldsCasesDoNotDependOnTheOtherFields() throws IOException {
+        ObjectNode fewer = baseConfig();
+        fewer.remove("2");
+        fewer.remove("41");
+
+        assertEquals(render(new TestCaseGenerator(baseConfig(), 7).cases("55")),
+                     render(new TestCaseGenerator(fewer, 7).cases("55")));
+    }
+
+    @Test
+    void onlyNumericDateFieldsTakeTheSampleData() throws IOException {
+        ObjectNode extended = new TestCaseGenerator(baseConfig(), 1).extendedConfig();
+
+        assertEquals("1231235959", extended.get("7").get("validExample").asText());
+        assertTrue(extended.get("7").get("validationRules").get("isDateTime").asBoolean());
+        // An alphanumeric date field keeps its date rules but gets a random example of its type, like the Python
+        assertTrue(extended.get("13").get("validationRules").get("isDateTime").asBoolean());
+        String example = extended.get("13").get("validExample").asText();
+        assertEquals(4, example.length());
+        assertTrue(example.chars().allMatch(Character::isLetterOrDigit), example);
+        assertFalse(extended.get("41").get("validationRules").has("isDateTime"));
+    }
+
+    private static String render(TestCaseGenerator generator) {
+        return render(generator.cases().collect(Collectors.toList()));
+    }
+
+    private static String render(List<TestCaseGenerator.TestCase> cases) {
+        return cases.stream().map(c -> c.field + " " + c.category + " " + c.value + " " + c.description)
+                    .collect(Collectors.joining("\n"));
+    }
+
+    private static ObjectNode baseConfig() throws IOException {
+        return (ObjectNode) new ObjectMapper().readTree(BASE_CONFIG);
+    }
+}
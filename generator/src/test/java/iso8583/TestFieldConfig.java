@@ -0,0 +1,76 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A small flattened field config covering each format and type, with a secondary bitmap field
+ */
+final class TestFieldConfig {
+
+    static final String JSON = """
+            {
+              "2": {"name": "Primary Account Number", "format": "llvar", "type": "numeric", "max_length": 19,
+                    "validExampleRaw": "4111111111111111", "validExample": "164111111111111111",
+                    "validationRules": {"maxLength": 19, "lengthIndicatorSize": 2, "allowedChars": "0-9"},
+                    "invalid_type_value": "ABCDEFGHIJKLMNOP", "invalid_type_description": "Contains non-numeric characters",
+                    "invalid_length_exceed_max_value": "12345678901234567890",
+                    "invalid_length_exceed_max_description": "Raw data exceeds maximum length of 19 characters"},
+              "3": {"name": "Processing Code", "format": "fixed", "type": "numeric", "length": 6,
+                    "validExample": "000000",
+                    "validationRules": {"exactLength": 6, "allowedChars": "0-9"},
+                    "invalid_length_short_value": "00000", "invalid_length_short_description": "Too short"},
+              "7": {"name": "Transmission Date and Time", "format": "fixed", "type": "numeric", "length": 10,
+                    "validExample": "1231235959",
+                    "validationRules": {"exactLength": 10, "allowedChars": "0-9", "isDateTime": true,
+                                        "format": "MMDDhhmmss"},
+                    "invalid_datetime_value": "1335251060", "invalid_datetime_description": "Invalid date and time value"},
+              "41": {"name": "Card Acceptor Terminal ID", "format": "fixed", "type": "alphanumeric", "length": 8,
+                     "validExample": "TERM0001",
+                     "validationRules": {"exactLength": 8, "allowedChars": "a-zA-Z0-9"},
+                     "invalid_special_chars_value": "!@#$%^&*", "invalid_special_chars_description": "Special characters"},
+              "52": {"name": "PIN Data", "format": "fixed", "type": "binary", "length": 16,
+                     "validExample": "1010101011110000",
+                     "validationRules": {"exactLength": 16, "allowedChars": "0-1"}},
+              "55": {"name": "ICC Data", "format": "lllvar", "type": "hex", "max_length": 255,
+                     "validExampleRaw": "9F2608A1B2C3D4", "validExample": "0149F2608A1B2C3D4",
+                     "validationRules": {"maxLength": 255, "lengthIndicatorSize": 3, "allowedChars": "0-9A-F"},
+                     "invalid_hex_chars_value": "GHIJ", "invalid_hex_chars_description": "Invalid hexadecimal letters"},
+              "70": {"name": "Network Management Code", "format": "fixed", "type": "numeric", "length": 3,
+                     "validExample": "301",
+                     "validationRules": {"exactLength": 3, "allowedChars": "0-9"}}
+            }
+            """;
+
+    private TestFieldConfig() {
+    }
+
+    static ObjectNode json() {
+        try {
+            return (ObjectNode) new ObjectMapper().readTree(JSON);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static FieldSpecs fieldSpecs() {
+        return FieldSpecs.compile(json(), ISO8583TestGenerator.TEST_CATEGORIES);
+    }
+
+    /**
+     * @return The MTI and every field's baseline value
+     */
+    static Map<String, String> validMessage(FieldSpecs fieldSpecs) {
+        Map<String, String> fieldData = new LinkedHashMap<>();
+        fieldData.put("MTI", "0200");
+        for (FieldSpec spec : fieldSpecs.all()) {
+            fieldData.put(spec.getKey(), spec.getBaselineValue());
+        }
+        return fieldData;
+    }
+}
@@ -0,0 +1,70 @@
+package iso8583;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestMetricsTest {
+
+    @Test
+    void casesAreKeptPerFieldAndCategory() {
+        TestMetrics metrics = new TestMetrics();
+
+        assertSame(metrics.forCase("2", "invalid_type"), metrics.forCase("2", "invalid_type"));
+    }
+
+    @Test
+    void prometheusTextCountsResultsAndStages() {
+        TestMetrics metrics = new TestMetrics();
+        TestMetrics.CaseMetrics invalidType = metrics.forCase("2", "invalid_type");
+        invalidType.recordResult(true);
+        invalidType.recordResult(true);
+        invalidType.recordResult(false);
+        invalidType.recordTransportError();
+        invalidType.send.record(2_000_000_000L);
+        invalidType.send.record(1_000_000_000L);
+
+        String text = metrics.toPrometheusText();
+
+        assertTrue(text.contains("iso8583_test_results_total{field=\"2\",category=\"invalid_type\",result=\"passed\"} 2\n"),
+                   text);
+        assertTrue(text.contains("iso8583_test_results_total{field=\"2\",category=\"invalid_type\",result=\"failed\"} 1\n"),
+                   text);
+        assertTrue(text.contains("iso8583_transport_errors_total{field=\"2\",category=\"invalid_type\"} 1\n"), text);
+        assertTrue(text.contains("iso8583_stage_seconds_count{field=\"2\",category=\"invalid_type\",stage=\"send\"} 2\n"),
+                   text);
+        assertTrue(text.contains("iso8583_stage_seconds_sum{field=\"2\",category=\"invalid_type\",stage=\"send\"} 3.0\n"),
+                   text);
+        assertTrue(text.contains("iso8583_stage_seconds_max{field=\"2\",category=\"invalid_type\",stage=\"send\"} 2.0\n"),
+                   text);
+    }
+
+    @Test
+    void labelsAreEscaped() {
+        TestMetrics metrics = new TestMetrics();
+        metrics.forCase("a\"b", "c\\d").recordError();
+
+        assertTrue(metrics.toPrometheusText().contains("{field=\"a\\\"b\",category=\"c\\\\d\"} 1\n"));
+    }
+
+    @Test
+    void jsonHasOneEntryPerCaseInFieldOrder() throws Exception {
+        TestMetrics metrics = new TestMetrics();
+        metrics.forCase("3", "invalid_type").recordResult(false);
+        metrics.forCase("2", "invalid_type").recordResult(true);
+        metrics.forCase("2", "invalid_empty").validate.record(4_000_000L);
+
+        JsonNode cases = new ObjectMapper().readTree(metrics.toJson()).get("cases");
+
+        assertEquals(3, cases.size());
+        assertEquals("invalid_empty", cases.get(0).get("category").asText());
+        assertEquals(4.0, cases.get(0).get("validate").get("meanMillis").asDouble());
+        assertEquals(1, cases.get(1).get("passed").asLong());
+        assertEquals("3", cases.get(2).get("field").asText());
+        assertEquals(1, cases.get(2).get("failed").asLong());
+    }
+}
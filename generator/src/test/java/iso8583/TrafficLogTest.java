@@ -0,0 +1,82 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TrafficLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        Path file = dir.resolve("capture.bin");
+        Map<String, String> first = new LinkedHashMap<>(Map.of("MTI", "0200", "3", "000000", "41", "TERM0001"));
+        Map<String, String> second = new LinkedHashMap<>(first);
+        second.put("3", "00000");
+        second.remove("41");
+        long start = System.nanoTime();
+        try (TrafficLog log = TrafficLog.create(file)) {
+            log.append(start, 1_000, ISO8583TestGenerator.SendOutcome.ACCEPTED, "valid", "baseline", first,
+                       "0200message", "{\"3\":\"000000\"}");
+            log.append(start, 2_000, ISO8583TestGenerator.SendOutcome.TRANSPORT_ERROR, "3", "invalid_length_short",
+                       second, "0200short", null);
+            assertEquals(2, log.getRecords());
+        }
+
+        try (TrafficLog.Reader reader = new TrafficLog.Reader(file)) {
+            TrafficLog.Record record = reader.next();
+            assertEquals(ISO8583TestGenerator.SendOutcome.ACCEPTED, record.outcome);
+            assertEquals("valid", record.field);
+            assertEquals(first, record.fieldData);
+            assertEquals("0200message", record.isoMessage);
+            assertEquals("{\"3\":\"000000\"}", record.response);
+            assertEquals(1_000, record.sendNanos);
+
+            record = reader.next();
+            assertEquals(ISO8583TestGenerator.SendOutcome.TRANSPORT_ERROR, record.outcome);
+            assertEquals("invalid_length_short", record.category);
+            assertEquals(second, record.fieldData);
+            assertEquals("0200short", record.isoMessage);
+            assertNull(record.response);
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void ignoresARecordCutShort() throws IOException {
+        Path file = dir.resolve("capture.bin");
+        try (TrafficLog log = TrafficLog.create(file)) {
+            for (int i = 0; i < 2; i++) {
+                log.append(System.nanoTime(), 1, ISO8583TestGenerator.SendOutcome.REJECTED, "2", "invalid_type",
+                           Map.of("2", "ABC" + i), "message " + i, "{}");
+            }
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        try (TrafficLog.Reader reader = new TrafficLog.Reader(file)) {
+            assertEquals("message 0", reader.next().isoMessage);
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void refusesAFileThatIsNotACapture() throws IOException {
+        Path file = dir.resolve("results.txt");
+        Files.writeString(file, "ISO8583 Parser Test Results\n");
+
+        assertThrows(IOException.class, () -> new TrafficLog.Reader(file));
+    }
+}
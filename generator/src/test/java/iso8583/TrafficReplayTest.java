@@ -0,0 +1,44 @@
+package iso8583;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrafficReplayTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void comparesReplayedOutcomesWithTheRecordedOnes() throws IOException, InterruptedException {
+        Path file = dir.resolve("capture.bin");
+        try (TrafficLog log = TrafficLog.create(file)) {
+            long start = System.nanoTime();
+            log.append(start, 1, ISO8583TestGenerator.SendOutcome.REJECTED, "2", "invalid_type",
+                       Map.of("2", "ABC"), "rejected", "{}");
+            log.append(start, 1, ISO8583TestGenerator.SendOutcome.REJECTED, "3", "invalid_length_short",
+                       Map.of("3", "00000"), "accepted", "{}");
+            log.append(start, 1, ISO8583TestGenerator.SendOutcome.TRANSPORT_ERROR, "41", "invalid_special_chars",
+                       Map.of("41", "!@#$%^&*"), "rejected", null);
+        }
+
+        // Replays each record as its recorded message says it should now be answered
+        TrafficReplay.Results results;
+        try (TrafficLog.Reader log = new TrafficLog.Reader(file)) {
+            results = new TrafficReplay(0, 2, 10).run(log, record -> record.isoMessage.equals("accepted") ?
+                    ISO8583TestGenerator.SendOutcome.ACCEPTED : ISO8583TestGenerator.SendOutcome.REJECTED);
+        }
+
+        assertEquals(3, results.records.sum());
+        assertEquals(1, results.same.sum());
+        assertEquals(1, results.changed.sum());
+        assertEquals(1, results.transportErrors.sum());
+        assertEquals(List.of("Field 3 invalid_length_short: REJECTED -> ACCEPTED"), List.copyOf(results.changes));
+    }
+}